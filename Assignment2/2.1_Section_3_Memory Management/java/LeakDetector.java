@@ -0,0 +1,298 @@
+import java.io.PrintStream;
+import java.lang.management.*;
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+import javax.management.ObjectName;
+
+// Lightweight leak tracking for long-lived holders such as Main.holder.
+//
+// - track(): a collection (or any object) is sampled on a timer for its size
+//   and, optionally, its retained bytes. Targets are held through weak
+//   references, so tracking never keeps a holder alive. A target is flagged once
+//   it has grown across `window` consecutive samples without ever shrinking.
+// - watch(): a resource that must be handed back (a pooled buffer, say) gets a
+//   Cleaner registration. If it becomes unreachable before release() is called,
+//   it is counted as abandoned for its allocation site.
+// - When tracked bytes, or heap still in use after the last GC, cross the
+//   threshold, a class histogram is printed through the DiagnosticCommand MXBean
+//   (the same data as `jcmd <pid> GC.class_histogram`). The threshold then
+//   doubles, so a steady leak yields a few histograms instead of one per sample.
+//
+// A sample only reads sizes, the caller's retained-bytes estimate and MXBean
+// counters, so it costs microseconds. The histogram forces a full GC and is the
+// only expensive step, which is why it is gated on the threshold. Callers that
+// time their own work can setDeferHistograms(true): timer samples then only mark
+// a histogram as pending, and the next sampleNow() call prints it.
+public class LeakDetector implements AutoCloseable {
+    private static final int HISTOGRAM_LINES = 20;
+
+    private final PrintStream out;
+    private final int window;
+    private final List<Tracked<?>> tracked = new CopyOnWriteArrayList<>();
+    private final Map<String, AtomicLong> abandoned = new ConcurrentHashMap<>();
+    private final Cleaner cleaner = Cleaner.create();
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>(); // looked up once: the lookup costs more than a sample
+    private ScheduledExecutorService sampler;
+    private long histogramThresholdBytes;
+    private boolean deferHistograms;
+    private long pendingHistogramBytes; // retained bytes when a deferred crossing was seen, 0 if none
+    private int histograms;
+    private long samples;
+    private long sampleNanos;
+
+    public LeakDetector(PrintStream out, int window, long histogramThresholdBytes) {
+        if (window < 2) {
+            throw new IllegalArgumentException("window must be at least 2 samples");
+        }
+        this.out = out;
+        this.window = window;
+        this.histogramThresholdBytes = histogramThresholdBytes;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+    }
+
+    // Both functions run on the sampler thread while the owner keeps writing, so
+    // they must tolerate concurrent modification: read sizes without locking, and
+    // make retainedBytes a best-effort walk or a running total the owner keeps.
+    // If retainedBytes throws, the sample keeps the size and records the bytes as
+    // unknown. retainedBytes may be null when only the size is worth sampling.
+    public <T> void track(String name, T target, ToLongFunction<? super T> size, ToLongFunction<? super T> retainedBytes) {
+        tracked.add(new Tracked<>(name, target, size, retainedBytes, window));
+    }
+
+    public void track(String name, Collection<?> collection) {
+        track(name, collection, Collection::size, null);
+    }
+
+    // Call release() on the returned handle when the resource is handed back
+    public Handle watch(Object resource, String site) {
+        AtomicLong counter = abandoned.computeIfAbsent(site, key -> new AtomicLong());
+        Watch state = new Watch(counter);
+        return new Handle(state, cleaner.register(resource, state));
+    }
+
+    public long abandonedCount(String site) {
+        AtomicLong counter = abandoned.get(site);
+        return counter == null ? 0 : counter.get();
+    }
+
+    public synchronized void start(long intervalMillis) {
+        if (sampler != null) {
+            return;
+        }
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leak-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleWithFixedDelay(() -> sample(!deferHistograms), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void setDeferHistograms(boolean defer) {
+        this.deferHistograms = defer;
+    }
+
+    // Samples on the caller's thread; also prints a histogram a timer sample deferred
+    public void sampleNow() {
+        sample(true);
+    }
+
+    private synchronized void sample(boolean mayPrintHistogram) {
+        long start = System.nanoTime();
+        long trackedBytes = 0;
+        for (Tracked<?> target : tracked) {
+            if (!target.sample()) {
+                tracked.remove(target); // collected: nothing left to leak
+                continue;
+            }
+            trackedBytes += Math.max(0, target.lastBytes());
+            if (target.isGrowing() && !target.flagged) {
+                target.flagged = true;
+                out.println("leak? " + target.describe());
+            }
+        }
+        samples++;
+        sampleNanos += System.nanoTime() - start;
+
+        long retained = Math.max(trackedBytes, heapAfterLastGc());
+        if (histogramThresholdBytes > 0 && retained >= histogramThresholdBytes) {
+            pendingHistogramBytes = Math.max(pendingHistogramBytes, retained);
+        }
+        if (mayPrintHistogram && pendingHistogramBytes > 0) {
+            out.printf(Locale.ROOT, "retained %.1f MB crossed %.1f MB; class histogram:%n",
+                pendingHistogramBytes / (double) (1 << 20), histogramThresholdBytes / (double) (1 << 20));
+            printHistogram();
+            pendingHistogramBytes = 0;
+            histogramThresholdBytes *= 2;
+        }
+    }
+
+    public synchronized void report() {
+        for (Tracked<?> target : tracked) {
+            out.println((target.flagged ? "LEAK " : "ok   ") + target.describe());
+        }
+        for (Map.Entry<String, AtomicLong> site : new TreeMap<>(abandoned).entrySet()) {
+            if (site.getValue().get() > 0) {
+                out.println("abandoned " + site.getValue().get() + " x " + site.getKey());
+            }
+        }
+        out.printf(Locale.ROOT, "%d samples, %.1f us each, %d histograms%n",
+            samples, samples == 0 ? 0.0 : sampleNanos / 1e3 / samples, histograms);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+            sampler = null;
+        }
+    }
+
+    // Heap occupied right after the most recent collection of each pool: what the GC could not free
+    private long heapAfterLastGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return used;
+    }
+
+    private void printHistogram() {
+        histograms++;
+        try {
+            ObjectName name = new ObjectName("com.sun.management:type=DiagnosticCommand");
+            String histogram = (String) ManagementFactory.getPlatformMBeanServer().invoke(name, "gcClassHistogram",
+                new Object[] {new String[0]}, new String[] {String[].class.getName()});
+            String[] lines = histogram.split("\n");
+            for (int i = 0; i < Math.min(lines.length, HISTOGRAM_LINES); i++) {
+                out.println("  " + lines[i]);
+            }
+        } catch (Exception e) {
+            out.println("  class histogram unavailable: " + e);
+        }
+    }
+
+    public static class Handle {
+        private final Watch state;
+        private final Cleaner.Cleanable cleanable;
+
+        Handle(Watch state, Cleaner.Cleanable cleanable) {
+            this.state = state;
+            this.cleanable = cleanable;
+        }
+
+        public void release() {
+            state.released = true;
+            cleanable.clean();
+        }
+    }
+
+    // Cleaner action; it must not reference the resource or the resource never becomes unreachable
+    private static class Watch implements Runnable {
+        private final AtomicLong abandoned;
+        private volatile boolean released;
+
+        Watch(AtomicLong abandoned) {
+            this.abandoned = abandoned;
+        }
+
+        @Override
+        public void run() {
+            if (!released) {
+                abandoned.incrementAndGet();
+            }
+        }
+    }
+
+    private static class Tracked<T> {
+        final String name;
+        final WeakReference<T> target;
+        final ToLongFunction<? super T> size;
+        final ToLongFunction<? super T> retainedBytes;
+        final long[] sizes;   // ring of the last `window` samples
+        final long[] bytes;
+        int count;
+        boolean flagged;
+
+        Tracked(String name, T target, ToLongFunction<? super T> size, ToLongFunction<? super T> retainedBytes, int window) {
+            this.name = name;
+            this.target = new WeakReference<>(target);
+            this.size = size;
+            this.retainedBytes = retainedBytes;
+            this.sizes = new long[window];
+            this.bytes = new long[window];
+        }
+
+        // False once the target has been collected
+        boolean sample() {
+            T value = target.get();
+            if (value == null) {
+                return false;
+            }
+            long currentSize;
+            try {
+                currentSize = size.applyAsLong(value);
+            } catch (RuntimeException e) {
+                return true; // nothing to record this time
+            }
+            long currentBytes = -1;
+            if (retainedBytes != null) {
+                try {
+                    currentBytes = retainedBytes.applyAsLong(value);
+                } catch (RuntimeException e) {
+                    // The owner mutated it mid-walk (e.g. ConcurrentModificationException); the size still counts
+                }
+            }
+            int slot = count % sizes.length;
+            sizes[slot] = currentSize;
+            bytes[slot] = currentBytes;
+            count++;
+            return true;
+        }
+
+        long lastBytes() {
+            return count == 0 ? -1 : bytes[(count - 1) % bytes.length];
+        }
+
+        // Never shrank over the full window, and ended bigger than it started
+        boolean isGrowing() {
+            if (count < sizes.length) {
+                return false;
+            }
+            long previous = -1;
+            for (int i = 0; i < sizes.length; i++) {
+                long current = sizes[(count + i) % sizes.length];
+                if (current < previous) {
+                    return false;
+                }
+                previous = current;
+            }
+            return previous > sizes[count % sizes.length];
+        }
+
+        String describe() {
+            if (count == 0) {
+                return name + ": not sampled yet";
+            }
+            int oldest = count < sizes.length ? 0 : count % sizes.length;
+            int newest = (count - 1) % sizes.length;
+            StringBuilder text = new StringBuilder(name).append(": ")
+                .append(sizes[oldest]).append(" -> ").append(sizes[newest]).append(" elements");
+            if (bytes[oldest] >= 0 && bytes[newest] >= 0) {
+                text.append(String.format(Locale.ROOT, ", %.1f -> %.1f MB",
+                    bytes[oldest] / (double) (1 << 20), bytes[newest] / (double) (1 << 20)));
+            }
+            return text.append(" over the last ").append(Math.min(count, sizes.length)).append(" samples").toString();
+        }
+    }
+}
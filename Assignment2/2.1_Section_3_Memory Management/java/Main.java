@@ -1,27 +1,435 @@
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import java.lang.management.*;
+import java.nio.ByteBuffer;
 import java.util.*;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
 
+// Allocation benchmark: runs the same buffer workload under several allocation
+// strategies and reports what each one costs the collector.
+//
+//   release  new heap array per operation, dropped right away (allocateAndRelease)
+//   pooled   size-classed heap buffers reused through BufferPool
+//   offheap  size-classed direct ByteBuffers reused through BufferPool (outside the Java heap)
+//   retain   arrays kept reachable in holder (allocateAndRetain): a logical "leak";
+//            `retain` arrays in total, spread over the measured rounds
+//
+// Usage: java Main [key=value ...]
+//   modes=release,pooled,offheap,retain  ops=200  size=200000  spread=0.5  live=4
+//   retain=30 (arrays kept in total)  retainSize=1000000  rounds=5  warmup=1  pause=0 (ms to wait at the end, e.g. for a profiler)
+//   detect=0 (LeakDetector sampling interval in ms, 0 = off)  window=4  histogramMB=64
+//   leakEvery=0 (pooled modes drop every n-th buffer without releasing it, to exercise the detector)
 public class Main {
     static List<byte[]> holder = new ArrayList<>(); // retained = logical "leak"
 
+    private static final int PAGE = 4096;
+
+    static LeakDetector detector; // null unless detect=<ms> is given
+
     public static void main(String[] args) throws Exception {
-        allocateAndRelease();  // becomes unreachable → GC can reclaim
-        allocateAndRetain();   // kept reachable → GC cannot reclaim
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (split < 0) {
+                System.out.println("Usage: java Main [modes=release,pooled,offheap,retain] [ops=200] [size=200000] [spread=0.5] " +
+                                   "[live=4] [retain=30] [retainSize=1000000] [rounds=5] [warmup=1] [pause=0] " +
+                                   "[detect=0] [window=4] [histogramMB=64] [leakEvery=0]");
+                return;
+            }
+            options.put(arg.substring(0, split), arg.substring(split + 1));
+        }
+
+        String[] modes = options.getOrDefault("modes", "release,pooled,offheap,retain").split(",");
+        Workload workload = new Workload(
+            Integer.parseInt(options.getOrDefault("ops", "200")),
+            Integer.parseInt(options.getOrDefault("size", "200000")),
+            Double.parseDouble(options.getOrDefault("spread", "0.5")),
+            Integer.parseInt(options.getOrDefault("live", "4")),
+            Integer.parseInt(options.getOrDefault("retain", "30")),
+            Integer.parseInt(options.getOrDefault("retainSize", "1000000")),
+            Integer.parseInt(options.getOrDefault("leakEvery", "0")));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "5"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "1"));
+        long pauseMillis = Long.parseLong(options.getOrDefault("pause", "0"));
+        long detectMillis = Long.parseLong(options.getOrDefault("detect", "0"));
+
+        if (detectMillis > 0) {
+            detector = new LeakDetector(System.out, Integer.parseInt(options.getOrDefault("window", "4")),
+                Long.parseLong(options.getOrDefault("histogramMB", "64")) << 20);
+            detector.track("Main.holder", holder, List::size, Main::retainedBytes);
+            // A histogram forces a full GC; print it from run()'s sample after the timed rounds, not mid-round
+            detector.setDeferHistograms(true);
+            detector.start(detectMillis);
+        }
+
+        System.out.printf("%-8s %10s %12s %10s %6s %9s %9s %12s %12s %10s %10s%n", "mode", "ms/round", "heap MB/rnd",
+            "MB/s", "GCs", "pause ms", "max pause", "peak heap MB", "heap used MB", "direct MB", "pool hits");
+        for (String mode : modes) {
+            Telemetry result = run(mode, workload, rounds, warmup);
+            System.out.printf(Locale.ROOT, "%-8s %10.3f %12.2f %10.1f %6d %9d %9d %12.1f %12.1f %10.1f %10s%n",
+                mode, result.millisPerRound(), result.allocatedMegabytesPerRound(), result.allocationRate(),
+                result.gcCount, result.pauseMillis, result.maxPauseMillis, mb(result.peakHeapBytes), mb(result.heapUsedBytes),
+                mb(result.directBytes), result.poolHits < 0 ? "-" : String.valueOf(result.poolHits));
+        }
         System.out.println("holder size = " + holder.size());
 
-        // Ask GC to run (not guaranteed), then pause for profiling
-        System.gc();
-        Thread.sleep(30000);
+        if (detector != null) {
+            // Dropped buffers are only noticed once the GC has found them and the Cleaner thread has run
+            System.gc();
+            Thread.sleep(100);
+            detector.sampleNow();
+            detector.report();
+            detector.close();
+        }
+
+        if (pauseMillis > 0) {
+            Thread.sleep(pauseMillis);
+        }
     }
 
-    static void allocateAndRelease() {
-        for (int i = 0; i < 200; i++) {
-            byte[] b = new byte[200_000];  // ~200 KB
+    static long allocateAndRelease(Workload workload, Random random) {
+        long checksum = 0;
+        for (int i = 0; i < workload.ops; i++) {
+            byte[] b = new byte[workload.nextSize(random)];
+            checksum += touch(ByteBuffer.wrap(b), i);
         } // b goes out of scope; eligible for GC
+        return checksum;
+    }
+
+    static void allocateAndRetain(Workload workload, int count) {
+        for (int i = 0; i < count; i++) {
+            holder.add(new byte[workload.retainSize]); // kept reachable → GC cannot reclaim
+        }
+    }
+
+    // Same access pattern as allocateAndRelease, but up to `live` buffers are in
+    // use at once and every buffer goes back to the pool instead of the GC
+    static long allocatePooled(Workload workload, Random random, BufferPool pool) {
+        ByteBuffer[] inUse = new ByteBuffer[workload.live];
+        LeakDetector.Handle[] handles = new LeakDetector.Handle[workload.live];
+        String site = pool.direct ? "BufferPool(offheap)" : "BufferPool(heap)";
+        long checksum = 0;
+        for (int i = 0; i < workload.ops; i++) {
+            int slot = i % inUse.length;
+            if (inUse[slot] != null) {
+                release(pool, inUse[slot], handles[slot]);
+            }
+            inUse[slot] = pool.acquire(workload.nextSize(random));
+            handles[slot] = detector == null ? null : detector.watch(inUse[slot], site);
+            checksum += touch(inUse[slot], i);
+            if (workload.leakEvery > 0 && i % workload.leakEvery == 0) {
+                inUse[slot] = null; // forgotten: never returned to the pool
+            }
+        }
+        for (int slot = 0; slot < inUse.length; slot++) {
+            if (inUse[slot] != null) {
+                release(pool, inUse[slot], handles[slot]);
+            }
+        }
+        return checksum;
+    }
+
+    private static void release(BufferPool pool, ByteBuffer buffer, LeakDetector.Handle handle) {
+        if (handle != null) {
+            handle.release();
+        }
+        pool.release(buffer);
     }
 
-    static void allocateAndRetain() {
-        for (int i = 0; i < 30; i++) {
-            holder.add(new byte[1_000_000]); // ~1MB each, retained
+    // Bytes held by holder's arrays, as reported to the LeakDetector. Runs on the
+    // detector's thread while main appends, so it indexes instead of iterating
+    // (no ConcurrentModificationException) and skips slots not yet visible.
+    static long retainedBytes(List<byte[]> list) {
+        long bytes = 0;
+        for (int i = 0; i < list.size(); i++) {
+            byte[] array = list.get(i);
+            if (array != null) {
+                bytes += array.length;
+            }
+        }
+        return bytes;
+    }
+
+    // Write one byte per page so every strategy pays for touching its memory
+    private static long touch(ByteBuffer buffer, int value) {
+        for (int i = 0; i < buffer.limit(); i += PAGE) {
+            buffer.put(i, (byte) value);
+        }
+        return buffer.get(0);
+    }
+
+    static Telemetry run(String mode, Workload workload, int rounds, int warmup) {
+        BufferPool pool;
+        switch (mode) {
+            case "release":
+            case "retain":
+                pool = null;
+                break;
+            case "pooled":
+                pool = new BufferPool(false);
+                break;
+            case "offheap":
+                pool = new BufferPool(true);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode + " (expected release, pooled, offheap or retain)");
+        }
+
+        Random random = new Random(42);
+        long checksum = 0;
+        Telemetry telemetry = null;
+        for (int round = 0; round < warmup + rounds; round++) {
+            if (round == warmup) {
+                if (mode.equals("retain")) {
+                    holder.clear(); // warmup arrays don't count toward the `retain` total
+                }
+                telemetry = Telemetry.start();
+            }
+            switch (mode) {
+                case "release": checksum += allocateAndRelease(workload, random); break;
+                case "retain": allocateAndRetain(workload, retainShare(workload.retain, round < warmup ? round : round - warmup, rounds)); break;
+                default: checksum += allocatePooled(workload, random, pool); break;
+            }
+        }
+        if (telemetry == null) {
+            telemetry = Telemetry.start();
+        }
+        telemetry.stop(rounds, pool);
+        telemetry.checksum = checksum;
+        if (detector != null) {
+            // Outside the measured window: prints any histogram the timer deferred during the rounds
+            detector.sampleNow();
+        }
+        return telemetry;
+    }
+
+    // Arrays retained in the given round so that all rounds together keep `total`
+    private static int retainShare(int total, int round, int rounds) {
+        if (rounds <= 0) {
+            return total;
+        }
+        round %= rounds;
+        return (int) ((long) total * (round + 1) / rounds - (long) total * round / rounds);
+    }
+
+    private static double mb(long bytes) {
+        return bytes / (double) (1 << 20);
+    }
+
+    static class Workload {
+        final int ops;          // buffers requested per round
+        final int size;         // largest buffer size in bytes
+        final double spread;    // sizes are uniform in [size * (1 - spread), size]
+        final int live;         // buffers held at the same time (pooled modes)
+        final int retain;       // arrays kept in holder across all measured rounds (retain mode)
+        final int retainSize;
+        final int leakEvery;    // pooled modes: drop every n-th buffer without releasing it (0 = never)
+
+        Workload(int ops, int size, double spread, int live, int retain, int retainSize, int leakEvery) {
+            this.ops = ops;
+            this.size = size;
+            this.spread = Math.max(0.0, Math.min(1.0, spread));
+            this.live = Math.max(1, live);
+            this.retain = retain;
+            this.retainSize = retainSize;
+            this.leakEvery = leakEvery;
+        }
+
+        int nextSize(Random random) {
+            int smallest = Math.max(1, (int) (size * (1.0 - spread)));
+            return smallest >= size ? size : smallest + random.nextInt(size - smallest + 1);
+        }
+    }
+
+    // Reusable buffers in power-of-two size classes. A request is served from the
+    // smallest class that fits, so buffers of nearby sizes are interchangeable.
+    // Each class keeps at most MAX_FREE_PER_CLASS idle buffers; extra ones are
+    // dropped so a burst can't pin memory forever.
+    static class BufferPool {
+        private static final int MIN_CLASS = 12; // 4 KB
+        private static final int MAX_FREE_PER_CLASS = 64;
+
+        final boolean direct;
+        private final List<ArrayDeque<ByteBuffer>> free = new ArrayList<>();
+        long hits;
+        long misses;
+
+        BufferPool(boolean direct) {
+            this.direct = direct;
+        }
+
+        ByteBuffer acquire(int size) {
+            int sizeClass = sizeClass(size);
+            while (free.size() <= sizeClass) {
+                free.add(new ArrayDeque<>());
+            }
+            ByteBuffer buffer = free.get(sizeClass).pollFirst();
+            if (buffer == null) {
+                misses++;
+                buffer = direct ? ByteBuffer.allocateDirect(1 << sizeClass) : ByteBuffer.allocate(1 << sizeClass);
+            } else {
+                hits++;
+            }
+            buffer.clear().limit(size);
+            return buffer;
+        }
+
+        void release(ByteBuffer buffer) {
+            ArrayDeque<ByteBuffer> list = free.get(sizeClass(buffer.capacity()));
+            if (list.size() < MAX_FREE_PER_CLASS) {
+                list.addFirst(buffer); // most recently used first: likely still in cache
+            }
+        }
+
+        private static int sizeClass(int size) {
+            return Math.max(MIN_CLASS, 32 - Integer.numberOfLeadingZeros(size - 1));
+        }
+    }
+
+    // Before/after snapshot of the platform MXBeans around the measured rounds,
+    // plus per-collection details from the collectors' notifications
+    static class Telemetry {
+        private static final long NOTIFICATION_WAIT_MILLIS = 1_000;
+
+        private long startNanos;
+        private long startAllocated;
+        private long startGcCount;
+
+        long elapsedNanos;
+        int rounds;
+        long allocatedBytes;   // heap bytes allocated by this thread
+        long gcCount;
+        long pauseMillis;      // summed durations of the collections (ms resolution)
+        long maxPauseMillis;
+        long peakHeapBytes;    // largest total heap in use, taken just before each collection and at the end
+        long heapUsedBytes;    // heap in use at the end of the run
+        long directBytes;      // direct buffer memory in use at the end of the run
+        long poolHits = -1;
+        long checksum;
+
+        static Telemetry start() {
+            Telemetry telemetry = new Telemetry();
+            GcEvents.INSTANCE.reset();
+            telemetry.startGcCount = gcCount();
+            telemetry.startAllocated = allocatedBytes();
+            telemetry.startNanos = System.nanoTime();
+            return telemetry;
+        }
+
+        void stop(int rounds, BufferPool pool) {
+            elapsedNanos = System.nanoTime() - startNanos;
+            allocatedBytes = allocatedBytes() - startAllocated;
+            gcCount = gcCount() - startGcCount;
+            this.rounds = rounds;
+            heapUsedBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+            // Notifications arrive on a JMX thread shortly after each collection; block
+            // rather than spin so that thread gets the CPU even on a single core
+            GcEvents events = GcEvents.INSTANCE;
+            long deadline = System.currentTimeMillis() + NOTIFICATION_WAIT_MILLIS;
+            synchronized (events) {
+                long remaining;
+                while (events.collections < gcCount && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                    try {
+                        events.wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                pauseMillis = events.pauseMillis;
+                maxPauseMillis = events.maxPauseMillis;
+                peakHeapBytes = Math.max(events.peakHeapBeforeGc, heapUsedBytes);
+            }
+            for (BufferPoolMXBean buffers : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+                if (buffers.getName().equals("direct")) {
+                    directBytes = buffers.getMemoryUsed();
+                }
+            }
+            if (pool != null) {
+                poolHits = pool.hits;
+            }
+        }
+
+        double millisPerRound() {
+            return rounds == 0 ? 0 : elapsedNanos / 1e6 / rounds;
+        }
+
+        double allocatedMegabytesPerRound() {
+            return rounds == 0 ? 0 : mb(allocatedBytes) / rounds;
+        }
+
+        double allocationRate() {
+            return elapsedNanos == 0 ? 0 : mb(allocatedBytes) / (elapsedNanos / 1e9);
+        }
+
+        private static long gcCount() {
+            long count = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, gc.getCollectionCount());
+            }
+            return count;
+        }
+
+
+        // Falls back to 0 on JVMs without the HotSpot extension
+        private static long allocatedBytes() {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+            }
+            return 0;
+        }
+    }
+
+    // Listens to every collector's GC notifications. The collectors used here
+    // (Serial, Parallel, G1 young/mixed) stop the application for the whole
+    // collection, so a notification's duration is its pause time.
+    static class GcEvents implements NotificationListener {
+        static final GcEvents INSTANCE = new GcEvents();
+
+        long collections;
+        long pauseMillis;
+        long maxPauseMillis;
+        long peakHeapBeforeGc;
+
+        private GcEvents() {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (gc instanceof NotificationEmitter) {
+                    ((NotificationEmitter) gc).addNotificationListener(this, null, null);
+                }
+            }
+        }
+
+        synchronized void reset() {
+            collections = 0;
+            pauseMillis = 0;
+            maxPauseMillis = 0;
+            peakHeapBeforeGc = 0;
+        }
+
+        @Override
+        public synchronized void handleNotification(Notification notification, Object handback) {
+            if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                return;
+            }
+            GcInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData()).getGcInfo();
+            collections++;
+            pauseMillis += info.getDuration();
+            maxPauseMillis = Math.max(maxPauseMillis, info.getDuration());
+
+            long heapBefore = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                MemoryUsage usage = pool.getType() == MemoryType.HEAP ? info.getMemoryUsageBeforeGc().get(pool.getName()) : null;
+                if (usage != null) {
+                    heapBefore += usage.getUsed();
+                }
+            }
+            peakHeapBeforeGc = Math.max(peakHeapBeforeGc, heapBefore);
+            notifyAll();
         }
     }
 }
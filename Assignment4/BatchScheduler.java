@@ -0,0 +1,346 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+// Batch mode: schedules many sites over many weeks from one roster file.
+// The roster is streamed, and each site is handed to a fork-join pool as soon
+// as its last line has been read. Every (site, week) gets its own
+// DenseScheduleManager. All schedules are written in input order in one pass.
+//
+// Roster format (see test_data_batch.txt):
+//   site <name> [weeks <n>] [days <d1,d2,...>] [shifts <s1,s2,...>] [max <days>] [min <people>]
+//   <employee> [<pattern> ...]
+// A pattern has one digit per day: 0 = no preference, n = the n-th shift.
+// Pattern i applies to week i, and the patterns repeat when there are more weeks.
+//
+// Usage: java BatchScheduler <roster-file> <output-file> [threads]
+public class BatchScheduler {
+    private static final String[] DEFAULT_DAYS = Scheduler.DEFAULT_DAYS;
+    private static final String[] DEFAULT_SHIFTS = Scheduler.DEFAULT_SHIFTS;
+    private static final int DEFAULT_MAX_DAYS_PER_EMPLOYEE = Scheduler.DEFAULT_MAX_DAYS_PER_EMPLOYEE;
+    private static final int DEFAULT_MIN_EMPLOYEES_PER_SHIFT = Scheduler.DEFAULT_MIN_EMPLOYEES_PER_SHIFT;
+    private static final byte NO_SHIFT = ScheduleOptimizer.NO_SHIFT;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java BatchScheduler <roster-file> <output-file> [threads]");
+            return;
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+
+        List<ForkJoinTask<SiteResult>> pending = new ArrayList<>();
+        try (RosterReader reader = new RosterReader(new FileInputStream(args[0]))) {
+            Site site;
+            while ((site = reader.nextSite()) != null) {
+                pending.add(pool.submit(new SiteTask(site)));
+            }
+        }
+
+        int siteWeeks = 0;
+        int coverageGaps = 0;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(args[1]), StandardCharsets.UTF_8), 1 << 16)) {
+            for (ForkJoinTask<SiteResult> task : pending) {
+                SiteResult result = task.join();
+                out.write(result.text);
+                siteWeeks += result.weeks;
+                coverageGaps += result.coverageGaps;
+            }
+        }
+        pool.shutdown();
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Scheduled " + siteWeeks + " site-weeks across " + pending.size() + " sites (" +
+                         coverageGaps + " coverage gaps) in " + elapsedMillis + " ms on " + threads + " threads");
+    }
+
+    // One site's configuration and roster as read from the file
+    static class Site {
+        final String name;
+        final int weeks;
+        final String[] days;
+        final String[] shifts;
+        final int maxDaysPerEmployee;
+        final int minEmployeesPerShift;
+        final List<String> employees = new ArrayList<>();
+        final List<byte[][]> patterns = new ArrayList<>(); // per employee, one pattern per listed week
+
+        Site(String name, int weeks, String[] days, String[] shifts, int maxDaysPerEmployee, int minEmployeesPerShift) {
+            this.name = name;
+            this.weeks = weeks;
+            this.days = days;
+            this.shifts = shifts;
+            this.maxDaysPerEmployee = maxDaysPerEmployee;
+            this.minEmployeesPerShift = minEmployeesPerShift;
+        }
+    }
+
+    static class SiteResult {
+        final String text;
+        final int weeks;
+        final int coverageGaps;
+
+        SiteResult(String text, int weeks, int coverageGaps) {
+            this.text = text;
+            this.weeks = weeks;
+            this.coverageGaps = coverageGaps;
+        }
+    }
+
+    // Weeks of a site are independent too, so each one is its own subtask
+    private static class SiteTask extends RecursiveTask<SiteResult> {
+        private final Site site;
+
+        SiteTask(Site site) {
+            this.site = site;
+        }
+
+        @Override
+        protected SiteResult compute() {
+            List<WeekTask> weeks = new ArrayList<>();
+            for (int week = 0; week < site.weeks; week++) {
+                weeks.add(new WeekTask(site, week));
+            }
+            invokeAll(weeks);
+
+            StringBuilder text = new StringBuilder();
+            int coverageGaps = 0;
+            for (WeekTask week : weeks) {
+                SiteResult result = week.join();
+                text.append(result.text);
+                coverageGaps += result.coverageGaps;
+            }
+            return new SiteResult(text.toString(), site.weeks, coverageGaps);
+        }
+    }
+
+    private static class WeekTask extends RecursiveTask<SiteResult> {
+        private final Site site;
+        private final int week;
+
+        WeekTask(Site site, int week) {
+            this.site = site;
+            this.week = week;
+        }
+
+        @Override
+        protected SiteResult compute() {
+            DenseScheduleManager manager = new DenseScheduleManager(site.days, site.shifts,
+                site.maxDaysPerEmployee, site.minEmployeesPerShift, site.employees.size());
+
+            for (int i = 0; i < site.employees.size(); i++) {
+                String name = site.employees.get(i);
+                manager.addEmployee(name);
+                byte[][] employeePatterns = site.patterns.get(i);
+                if (employeePatterns.length == 0) {
+                    continue;
+                }
+                byte[] pattern = employeePatterns[week % employeePatterns.length];
+                for (int day = 0; day < site.days.length; day++) {
+                    if (pattern[day] != NO_SHIFT) {
+                        manager.setEmployeePreference(name, site.days[day], site.shifts[pattern[day]]);
+                    }
+                }
+            }
+            manager.generateSchedule();
+
+            int coverageGaps = manager.coverageGaps();
+            StringBuilder text = new StringBuilder();
+            text.append("== ").append(site.name).append(" week ").append(week + 1).append(" (")
+                .append(site.employees.size()).append(" employees, ").append(coverageGaps).append(" coverage gaps) ==\n");
+            manager.appendSchedule(text);
+            text.append('\n');
+            return new SiteResult(text.toString(), 1, coverageGaps);
+        }
+    }
+
+    // Byte-level tokenizer over a buffered stream. It does not use Scanner or
+    // build a String per line: only names become Strings, and preference
+    // patterns are decoded straight from the buffer.
+    static class RosterReader implements Closeable {
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position;
+        private int limit;
+        private byte[] token = new byte[64];
+        private int line = 1;
+        private Site pendingHeader; // header of the next site, read while finishing the previous one
+
+        RosterReader(InputStream in) {
+            this.in = in;
+        }
+
+        // Returns the next complete site, or null at the end of the file
+        Site nextSite() throws IOException {
+            Site site = pendingHeader;
+            pendingHeader = null;
+            while (nextLine()) {
+                String first = readWord();
+                if (first.equals("site")) {
+                    Site header = readSiteHeader();
+                    if (site == null) {
+                        site = header;
+                        continue;
+                    }
+                    pendingHeader = header;
+                    return site;
+                }
+                if (site == null) {
+                    throw error("employee line before the first site");
+                }
+                readEmployee(site, first);
+            }
+            return site;
+        }
+
+        private Site readSiteHeader() throws IOException {
+            if (atLineEnd()) {
+                throw error("site needs a name");
+            }
+            String name = readWord();
+            int weeks = 1;
+            String[] days = DEFAULT_DAYS;
+            String[] shifts = DEFAULT_SHIFTS;
+            int maxDays = DEFAULT_MAX_DAYS_PER_EMPLOYEE;
+            int minPerShift = DEFAULT_MIN_EMPLOYEES_PER_SHIFT;
+
+            while (!atLineEnd()) {
+                String key = readWord();
+                if (atLineEnd()) {
+                    throw error("missing value for " + key);
+                }
+                String value = readWord();
+                switch (key) {
+                    case "weeks": weeks = parsePositive(key, value); break;
+                    case "days": days = value.split(","); break;
+                    case "shifts": shifts = value.split(","); break;
+                    case "max": maxDays = parsePositive(key, value); break;
+                    case "min": minPerShift = parsePositive(key, value); break;
+                    default: throw error("unknown site option " + key);
+                }
+            }
+            if (days.length > 31) {
+                throw error("a week can have at most 31 days");
+            }
+            if (shifts.length > 9) {
+                throw error("preference patterns support at most 9 shifts");
+            }
+            return new Site(name, weeks, days, shifts, maxDays, minPerShift);
+        }
+
+        private void readEmployee(Site site, String name) throws IOException {
+            List<byte[]> patterns = new ArrayList<>();
+            while (!atLineEnd()) {
+                patterns.add(readPattern(site.days.length, site.shifts.length));
+            }
+            site.employees.add(name);
+            site.patterns.add(patterns.toArray(new byte[0][]));
+        }
+
+        private byte[] readPattern(int days, int shifts) throws IOException {
+            byte[] pattern = new byte[days];
+            int day = 0;
+            int c;
+            while ((c = peek()) != -1 && !isSpace(c)) {
+                if (c < '0' || c > '0' + shifts || day == days) {
+                    throw error("pattern needs " + days + " digits from 0 to " + shifts);
+                }
+                pattern[day++] = c == '0' ? NO_SHIFT : (byte) (c - '1');
+                position++;
+            }
+            if (day != days) {
+                throw error("pattern needs " + days + " digits from 0 to " + shifts);
+            }
+            return pattern;
+        }
+
+        // Skip blank and comment lines; true when positioned on a line with content
+        private boolean nextLine() throws IOException {
+            while (true) {
+                skipBlanks();
+                int c = peek();
+                if (c == -1) {
+                    return false;
+                }
+                if (c == '\n') {
+                    position++;
+                    line++;
+                } else if (c == '#') {
+                    while ((c = peek()) != -1 && c != '\n') {
+                        position++;
+                    }
+                } else {
+                    return true;
+                }
+            }
+        }
+
+        private boolean atLineEnd() throws IOException {
+            skipBlanks();
+            int c = peek();
+            return c == -1 || c == '\n' || c == '#';
+        }
+
+        private String readWord() throws IOException {
+            skipBlanks();
+            int length = 0;
+            int c;
+            while ((c = peek()) != -1 && !isSpace(c)) {
+                if (length == token.length) {
+                    token = Arrays.copyOf(token, length * 2);
+                }
+                token[length++] = (byte) c;
+                position++;
+            }
+            return new String(token, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void skipBlanks() throws IOException {
+            int c;
+            while ((c = peek()) == ' ' || c == '\t' || c == '\r') {
+                position++;
+            }
+        }
+
+        private int peek() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position] & 0xFF;
+        }
+
+        private static boolean isSpace(int c) {
+            return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+        }
+
+        private int parsePositive(String key, String value) throws IOException {
+            try {
+                int parsed = Integer.parseInt(value);
+                if (parsed > 0) {
+                    return parsed;
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw error(key + " must be a positive number, got " + value);
+        }
+
+        private IOException error(String message) {
+            return new IOException("line " + line + ": " + message);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
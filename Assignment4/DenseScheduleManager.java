@@ -0,0 +1,771 @@
+import java.io.*;
+import java.util.*;
+
+// Dense variant of EmployeeScheduleManager: days, shifts and employees are
+// plain int indices, so every scheduling check is an array read or a bit test
+// instead of a chain of String hash lookups. The week and shift set default to
+// the assignment's 7 days x 3 shifts but can be configured per instance.
+public class DenseScheduleManager implements Scheduler {
+    private static final int MAX_DAYS_PER_WEEK = 31; // one bit per day in an int week mask
+    private static final byte NO_SHIFT = ScheduleOptimizer.NO_SHIFT;
+
+    private final String[] days;
+    private final String[] shifts;
+    private final int maxDaysPerEmployee;
+    private final int minEmployeesPerShift;
+    private final int maxEmployeesPerShift; // cap used when adding preferred/extra staff
+    private final Map<String, Integer> dayLookup;
+    private final Map<String, Integer> shiftLookup;
+
+    private final Map<String, Integer> employeeIndex; // name -> employee id, only used at the API boundary
+    private String[] names;                            // employee id -> name
+    private byte[] preferences;                        // id * days.length + day -> preferred shift or NO_SHIFT
+    private byte[] assignedShifts;                     // id * days.length + day -> assigned shift or NO_SHIFT
+    private int[] weekMasks;                           // id -> bit d set when the employee works day d
+    private int[] blockedDays;                         // id -> bit d set when the employee can't work day d
+    private int employeeCount;
+
+    private final int[][] slotMembers; // (day * shifts.length + shift) -> employee ids
+    private final int[] slotSizes;
+
+    private long optimizationBudgetMillis; // 0 keeps the plain greedy schedule
+    private OptimizationReport lastOptimization;
+    private ScheduleListener listener;     // null: assignment events are off
+
+    // Live-schedule state for the incremental repair API
+    private boolean scheduleGenerated;
+    private int[][] slotPreferrers;      // slot -> employees who asked for it (may hold stale entries); built on first repair
+    private int[] slotPreferrerCounts;
+    private int[] slotPreferrerLive;     // slot -> employees whose current preference it is
+    private int[] compactionStamps;      // employee -> last compaction that kept them, to drop duplicates
+    private int compactions;
+    private int repairCursor;            // rotates replacement picks across the roster
+
+    public DenseScheduleManager() {
+        this(16);
+    }
+
+    public DenseScheduleManager(int expectedEmployees) {
+        this(DEFAULT_DAYS, DEFAULT_SHIFTS, DEFAULT_MAX_DAYS_PER_EMPLOYEE, DEFAULT_MIN_EMPLOYEES_PER_SHIFT, expectedEmployees);
+    }
+
+    public DenseScheduleManager(String[] days, String[] shifts, int maxDaysPerEmployee,
+                                int minEmployeesPerShift, int expectedEmployees) {
+        if (days.length == 0 || days.length > MAX_DAYS_PER_WEEK) {
+            throw new IllegalArgumentException("A week needs 1 to " + MAX_DAYS_PER_WEEK + " days, got " + days.length);
+        }
+        if (shifts.length == 0 || shifts.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("A day needs 1 to " + Byte.MAX_VALUE + " shifts, got " + shifts.length);
+        }
+        this.days = days.clone();
+        this.shifts = shifts.clone();
+        this.maxDaysPerEmployee = maxDaysPerEmployee;
+        this.minEmployeesPerShift = minEmployeesPerShift;
+        this.maxEmployeesPerShift = minEmployeesPerShift + 1;
+        this.dayLookup = indexOf(this.days);
+        this.shiftLookup = indexOf(this.shifts);
+
+        int capacity = Math.max(expectedEmployees, 1);
+        this.employeeIndex = new HashMap<>();
+        this.names = new String[capacity];
+        this.preferences = newShiftTable(capacity);
+        this.assignedShifts = newShiftTable(capacity);
+        this.weekMasks = new int[capacity];
+        this.blockedDays = new int[capacity];
+        this.slotMembers = new int[days.length * shifts.length][maxEmployeesPerShift];
+        this.slotSizes = new int[days.length * shifts.length];
+    }
+
+    public void addEmployee(String name) {
+        Integer existing = employeeIndex.get(name);
+        if (existing != null) {
+            // Re-adding an employee starts their preferences over, like the map-based manager
+            int id = existing;
+            for (int day = 0; day < days.length; day++) {
+                clearPreference(id, day);
+            }
+            return;
+        }
+        ensureCapacity(employeeCount + 1);
+        names[employeeCount] = name;
+        employeeIndex.put(name, employeeCount);
+        employeeCount++;
+    }
+
+    // Optimizing mode: after the greedy passes, spend up to this many milliseconds
+    // searching for a schedule that honors more preferences (see ScheduleOptimizer)
+    public void setOptimizationBudget(long millis) {
+        this.optimizationBudgetMillis = Math.max(millis, 0);
+    }
+
+    // Outcome of the optimizer in the last generateSchedule, or null if it didn't run
+    public OptimizationReport getLastOptimization() {
+        return lastOptimization;
+    }
+
+    public void setListener(ScheduleListener listener) {
+        this.listener = listener;
+    }
+
+    public void setEmployeePreference(String name, String day, String shift) {
+        Integer id = employeeIndex.get(name);
+        Integer dayIndex = dayLookup.get(day);
+        Integer shiftIndex = shiftLookup.get(shift);
+        if (id == null || dayIndex == null || shiftIndex == null
+                || preferences[id * days.length + dayIndex] == shiftIndex) {
+            return;
+        }
+        clearPreference(id, dayIndex);
+        preferences[id * days.length + dayIndex] = (byte) (int) shiftIndex;
+        if (slotPreferrers != null) {
+            slotPreferrerLive[dayIndex * shifts.length + shiftIndex]++;
+            addPreferrer(id, dayIndex, shiftIndex);
+        }
+    }
+
+    // The old slot's list entry goes stale; addPreferrer compacts it away later
+    private void clearPreference(int id, int day) {
+        int previous = preferences[id * days.length + day];
+        if (previous == NO_SHIFT) {
+            return;
+        }
+        preferences[id * days.length + day] = NO_SHIFT;
+        if (slotPreferrers != null) {
+            slotPreferrerLive[day * shifts.length + previous]--;
+        }
+    }
+
+    public void generateSchedule() {
+        // Rebuild from scratch rather than stacking onto a previous run
+        clearSchedule();
+        lastOptimization = null;
+
+        // First pass: Fill minimum requirements (priority over preferences)
+        fillMinimumRequirements();
+
+        // Second pass: Assign preferred shifts (if space available)
+        assignPreferredShifts();
+
+        // No conflict pass needed: the week bitmask makes it impossible to
+        // assign more than maxDaysPerEmployee days in the first place.
+
+        // Optional fourth pass: improve preference satisfaction within the time budget
+        if (optimizationBudgetMillis > 0) {
+            optimizeSchedule();
+        }
+
+        slotPreferrers = null;
+        scheduleGenerated = true;
+    }
+
+    // Incremental repair API: each call patches only the affected slots of the
+    // live schedule, keeps every constraint, and returns what it changed. Before
+    // the first generateSchedule they just record the data.
+
+    // Call-out: frees the employee's shift that day and backfills the slot if it drops below the minimum
+    public List<ScheduleChange> markUnavailable(String name, String day) {
+        List<ScheduleChange> changes = new ArrayList<>();
+        Integer id = employeeIndex.get(name);
+        Integer dayIndex = dayLookup.get(day);
+        if (id == null || dayIndex == null) {
+            return changes;
+        }
+        blockedDays[id] |= 1 << dayIndex;
+        if (!scheduleGenerated) {
+            return changes;
+        }
+
+        int shift = assignedShifts[id * days.length + dayIndex];
+        if (shift != NO_SHIFT) {
+            unassign(id, dayIndex, changes);
+            if (!backfill(dayIndex, shift, changes)) {
+                warnMinimumNotMet(dayIndex, shift);
+            }
+        }
+        return changes;
+    }
+
+    // New preference: moves the employee onto it if that can be done without
+    // breaking a minimum, the weekly limit or the per-shift cap
+    public List<ScheduleChange> updatePreference(String name, String day, String shift) {
+        List<ScheduleChange> changes = new ArrayList<>();
+        setEmployeePreference(name, day, shift);
+        Integer id = employeeIndex.get(name);
+        Integer dayIndex = dayLookup.get(day);
+        Integer shiftIndex = shiftLookup.get(shift);
+        if (!scheduleGenerated || id == null || dayIndex == null || shiftIndex == null
+                || (blockedDays[id] & (1 << dayIndex)) != 0) {
+            return changes;
+        }
+
+        int current = assignedShifts[id * days.length + dayIndex];
+        if (current == shiftIndex) {
+            return changes;
+        }
+
+        // Work out every step before touching the schedule, so a move either happens whole or not at all
+        int dropDay = -1;
+        if (current == NO_SHIFT && Integer.bitCount(weekMasks[id]) >= maxDaysPerEmployee) {
+            dropDay = findDroppableDay(id);
+            if (dropDay < 0) {
+                return changes;
+            }
+        }
+        int bumped = -1;
+        if (slotSizes[dayIndex * shifts.length + shiftIndex] >= maxEmployeesPerShift) {
+            bumped = findBumpable(dayIndex, shiftIndex);
+            if (bumped < 0) {
+                return changes;
+            }
+        }
+        // Leaving a slot at its minimum needs someone to take over: the bumped employee, or a replacement
+        boolean leavesGap = current != NO_SHIFT && slotSizes[dayIndex * shifts.length + current] <= minEmployeesPerShift;
+        int replacement = -1;
+        if (leavesGap && bumped < 0) {
+            replacement = findReplacement(dayIndex, current);
+            if (replacement < 0) {
+                return changes;
+            }
+        }
+
+        if (current != NO_SHIFT) {
+            unassign(id, dayIndex, changes);
+        }
+        if (dropDay >= 0) {
+            unassign(id, dropDay, changes);
+        }
+        if (bumped >= 0) {
+            unassign(bumped, dayIndex, changes);
+        }
+        assign(id, dayIndex, shiftIndex);
+        changes.add(new ScheduleChange(names[id], days[dayIndex], shifts[shiftIndex], true));
+
+        if (leavesGap) {
+            // Swap the bumped employee into the slot we just left when there is one
+            int takeover = bumped >= 0 ? bumped : replacement;
+            assign(takeover, dayIndex, current);
+            changes.add(new ScheduleChange(names[takeover], days[dayIndex], shifts[current], true));
+        }
+        return changes;
+    }
+
+    // New hire on a live schedule: records their preferences (day -> shift), closes
+    // any coverage gaps, then places them on their preferred shifts, bumping someone
+    // who didn't ask for a full slot
+    public List<ScheduleChange> addEmployeeToSchedule(String name, Map<String, String> preferredShifts) {
+        List<ScheduleChange> changes = new ArrayList<>();
+        if (employeeIndex.containsKey(name)) {
+            // Already on the roster: keep their schedule and treat each entry as a preference change
+            for (Map.Entry<String, String> preference : preferredShifts.entrySet()) {
+                changes.addAll(updatePreference(name, preference.getKey(), preference.getValue()));
+            }
+            return changes;
+        }
+        addEmployee(name);
+        for (Map.Entry<String, String> preference : preferredShifts.entrySet()) {
+            setEmployeePreference(name, preference.getKey(), preference.getValue());
+        }
+        if (!scheduleGenerated) {
+            return changes;
+        }
+
+        for (int day = 0; day < days.length; day++) {
+            for (int shift = 0; shift < shifts.length; shift++) {
+                backfill(day, shift, changes);
+            }
+        }
+
+        int id = employeeCount - 1;
+        for (int day = 0; day < days.length; day++) {
+            int preferredShift = preferences[id * days.length + day];
+            if (preferredShift == NO_SHIFT || !isAvailable(id, 1 << day)) {
+                continue;
+            }
+            if (slotSizes[day * shifts.length + preferredShift] >= maxEmployeesPerShift) {
+                int bumped = findBumpable(day, preferredShift);
+                if (bumped < 0) {
+                    continue;
+                }
+                unassign(bumped, day, changes);
+            }
+            assign(id, day, preferredShift);
+            changes.add(new ScheduleChange(name, days[day], shifts[preferredShift], true));
+        }
+        return changes;
+    }
+
+    // Tops the slot up to the minimum, preferring employees who asked for it; false if it stays short
+    private boolean backfill(int day, int shift, List<ScheduleChange> changes) {
+        int slot = day * shifts.length + shift;
+        while (slotSizes[slot] < minEmployeesPerShift) {
+            int id = findReplacement(day, shift);
+            if (id < 0) {
+                return false;
+            }
+            assign(id, day, shift);
+            changes.add(new ScheduleChange(names[id], days[day], shifts[shift], true));
+        }
+        return true;
+    }
+
+    private int findReplacement(int day, int shift) {
+        int dayBit = 1 << day;
+        int slot = day * shifts.length + shift;
+        if (slotPreferrers == null) {
+            buildPreferrerIndex();
+        }
+        int[] preferrers = slotPreferrers[slot];
+        for (int i = 0; i < slotPreferrerCounts[slot]; i++) {
+            int id = preferrers[i];
+            if (preferences[id * days.length + day] == shift && isAvailable(id, dayBit)) {
+                return id;
+            }
+        }
+
+        for (int i = 0; i < employeeCount; i++) {
+            int id = (repairCursor + i) % employeeCount;
+            if (isAvailable(id, dayBit)) {
+                repairCursor = (id + 1) % employeeCount;
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    // A worked day the employee didn't ask for and whose slot stays at the minimum without them
+    private int findDroppableDay(int id) {
+        for (int day = 0; day < days.length; day++) {
+            int shift = assignedShifts[id * days.length + day];
+            if (shift != NO_SHIFT && preferences[id * days.length + day] != shift
+                    && slotSizes[day * shifts.length + shift] > minEmployeesPerShift) {
+                return day;
+            }
+        }
+        return -1;
+    }
+
+    // Someone in a full slot who didn't ask for it
+    private int findBumpable(int day, int shift) {
+        int slot = day * shifts.length + shift;
+        for (int i = 0; i < slotSizes[slot]; i++) {
+            int id = slotMembers[slot][i];
+            if (preferences[id * days.length + day] != shift) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private void buildPreferrerIndex() {
+        int slots = days.length * shifts.length;
+        slotPreferrerCounts = new int[slots];
+        for (int i = 0; i < employeeCount * days.length; i++) {
+            if (preferences[i] != NO_SHIFT) {
+                slotPreferrerCounts[(i % days.length) * shifts.length + preferences[i]]++;
+            }
+        }
+        slotPreferrerLive = slotPreferrerCounts.clone();
+        slotPreferrers = new int[slots][];
+        for (int slot = 0; slot < slots; slot++) {
+            slotPreferrers[slot] = new int[Math.max(slotPreferrerCounts[slot], 4)];
+        }
+        Arrays.fill(slotPreferrerCounts, 0);
+        for (int i = 0; i < employeeCount * days.length; i++) {
+            if (preferences[i] != NO_SHIFT) {
+                addPreferrer(i / days.length, i % days.length, preferences[i]);
+            }
+        }
+    }
+
+    private void addPreferrer(int id, int day, int shift) {
+        int slot = day * shifts.length + shift;
+        int count = slotPreferrerCounts[slot];
+        if (count == slotPreferrers[slot].length) {
+            // Drop stale and duplicate entries before growing, so a long-lived schedule's lists stay near their live size
+            if (count >= 8 && count >= 2 * slotPreferrerLive[slot]) {
+                count = compactPreferrers(day, shift);
+            }
+            if (count == slotPreferrers[slot].length) {
+                slotPreferrers[slot] = Arrays.copyOf(slotPreferrers[slot], count * 2);
+            }
+        }
+        slotPreferrers[slot][count] = id;
+        slotPreferrerCounts[slot] = count + 1;
+    }
+
+    // Keeps one entry per employee whose preference still is this slot; returns the new count
+    private int compactPreferrers(int day, int shift) {
+        int slot = day * shifts.length + shift;
+        if (compactionStamps == null || compactionStamps.length < employeeCount) {
+            compactionStamps = new int[names.length];
+        }
+        compactions++;
+        int[] preferrers = slotPreferrers[slot];
+        int kept = 0;
+        for (int i = 0; i < slotPreferrerCounts[slot]; i++) {
+            int id = preferrers[i];
+            if (preferences[id * days.length + day] == shift && compactionStamps[id] != compactions) {
+                compactionStamps[id] = compactions;
+                preferrers[kept++] = id;
+            }
+        }
+        slotPreferrerCounts[slot] = kept;
+        return kept;
+    }
+
+    private void optimizeSchedule() {
+        int tableLength = employeeCount * days.length;
+        ScheduleOptimizer optimizer = new ScheduleOptimizer(employeeCount, days.length, shifts.length,
+            maxDaysPerEmployee, minEmployeesPerShift, maxEmployeesPerShift,
+            Arrays.copyOf(preferences, tableLength), Arrays.copyOf(blockedDays, employeeCount));
+        byte[] greedy = Arrays.copyOf(assignedShifts, tableLength);
+        int workers = Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        ScheduleOptimizer.Result result = optimizer.optimize(greedy, optimizationBudgetMillis, workers);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        lastOptimization = new OptimizationReport(optimizer.preferenceCount(), result.honored,
+            optimizer.honoredPreferences(greedy), result.coverageGaps, optimizer.coverageGaps(greedy),
+            result.moves, workers, elapsedMillis, result.allocatedBytes);
+        if (listener != null) {
+            listener.onMessage(lastOptimization.toString());
+        }
+
+        loadAssignments(result.assignments);
+    }
+
+    // Replace the current schedule with a dense (employee, day) -> shift table
+    private void loadAssignments(byte[] assignments) {
+        clearSchedule();
+        for (int id = 0; id < employeeCount; id++) {
+            for (int day = 0; day < days.length; day++) {
+                byte shift = assignments[id * days.length + day];
+                if (shift != NO_SHIFT) {
+                    assign(id, day, shift);
+                }
+            }
+        }
+    }
+
+    private void fillMinimumRequirements() {
+        if (employeeCount == 0) {
+            for (int day = 0; day < days.length; day++) {
+                for (int shift = 0; shift < shifts.length; shift++) {
+                    warnMinimumNotMet(day, shift);
+                }
+            }
+            return;
+        }
+
+        // Round-robin assignment in the same order as EmployeeScheduleManager
+        int employeeIndex = 0;
+        for (int day = 0; day < days.length; day++) {
+            for (int shift = 0; shift < shifts.length; shift++) {
+                for (int i = 0; i < minEmployeesPerShift; i++) {
+                    int id = findNextAvailableEmployee(day, employeeIndex);
+                    if (id >= 0) {
+                        assign(id, day, shift);
+                        if (listener != null) {
+                            listener.onAssigned(names[id], days[day], shifts[shift], "minimum requirement");
+                        }
+                        employeeIndex = (employeeIndex + 1) % employeeCount;
+                    } else {
+                        warnMinimumNotMet(day, shift);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private int findNextAvailableEmployee(int day, int startIndex) {
+        int dayBit = 1 << day;
+        for (int i = 0; i < employeeCount; i++) {
+            int id = startIndex + i;
+            if (id >= employeeCount) {
+                id -= employeeCount;
+            }
+            if (isAvailable(id, dayBit)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private void assignPreferredShifts() {
+        for (int day = 0; day < days.length; day++) {
+            int dayBit = 1 << day;
+            for (int id = 0; id < employeeCount; id++) {
+                if (!isAvailable(id, dayBit)) {
+                    continue;
+                }
+                int preferredShift = preferences[id * days.length + day];
+                if (preferredShift != NO_SHIFT && slotSizes[day * shifts.length + preferredShift] < maxEmployeesPerShift) {
+                    assign(id, day, preferredShift);
+                    if (listener != null) {
+                        listener.onAssigned(names[id], days[day], shifts[preferredShift], "preference");
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isAvailable(int id, int dayBit) {
+        int weekMask = weekMasks[id];
+        return ((weekMask | blockedDays[id]) & dayBit) == 0 && Integer.bitCount(weekMask) < maxDaysPerEmployee;
+    }
+
+    private void assign(int id, int day, int shift) {
+        int slot = day * shifts.length + shift;
+        int size = slotSizes[slot];
+        if (size == slotMembers[slot].length) {
+            slotMembers[slot] = Arrays.copyOf(slotMembers[slot], size * 2);
+        }
+        slotMembers[slot][size] = id;
+        slotSizes[slot] = size + 1;
+        assignedShifts[id * days.length + day] = (byte) shift;
+        weekMasks[id] |= 1 << day;
+    }
+
+    private void unassign(int id, int day, List<ScheduleChange> changes) {
+        int shift = assignedShifts[id * days.length + day];
+        int slot = day * shifts.length + shift;
+        int[] members = slotMembers[slot];
+        int size = slotSizes[slot];
+        for (int i = 0; i < size; i++) {
+            if (members[i] == id) {
+                // Keep the remaining names in their printed order
+                System.arraycopy(members, i + 1, members, i, size - i - 1);
+                break;
+            }
+        }
+        slotSizes[slot] = size - 1;
+        assignedShifts[id * days.length + day] = NO_SHIFT;
+        weekMasks[id] &= ~(1 << day);
+        changes.add(new ScheduleChange(names[id], days[day], shifts[shift], false));
+    }
+
+    private void clearSchedule() {
+        Arrays.fill(slotSizes, 0);
+        Arrays.fill(weekMasks, 0, employeeCount, 0);
+        Arrays.fill(assignedShifts, NO_SHIFT);
+    }
+
+    private void warnMinimumNotMet(int day, int shift) {
+        if (listener != null) {
+            listener.onMinimumNotMet(days[day], shifts[shift]);
+        }
+    }
+
+    public String getAssignedShift(String name, String day) {
+        Integer id = employeeIndex.get(name);
+        Integer dayIndex = dayLookup.get(day);
+        if (id == null || dayIndex == null) {
+            return null;
+        }
+        int shift = assignedShifts[id * days.length + dayIndex];
+        return shift == NO_SHIFT ? null : shifts[shift];
+    }
+
+    public void forEachSlot(SlotVisitor visitor) {
+        for (int day = 0; day < days.length; day++) {
+            for (int shift = 0; shift < shifts.length; shift++) {
+                int slot = day * shifts.length + shift;
+                visitor.slot(days[day], shifts[shift], slotSizes[slot]);
+                for (int i = 0; i < slotSizes[slot]; i++) {
+                    visitor.employee(names[slotMembers[slot][i]]);
+                }
+            }
+        }
+    }
+
+    public void printSchedule() {
+        Writer out = ScheduleRenderer.console();
+        try {
+            writeSchedule(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void writeSchedule(Writer out) throws IOException {
+        out.write("\n=== WEEKLY EMPLOYEE SCHEDULE ===");
+        out.write(ScheduleRenderer.NEWLINE);
+        ScheduleRenderer.repeat(out, '=', 51);
+        out.write(ScheduleRenderer.NEWLINE);
+
+        for (int day = 0; day < days.length; day++) {
+            out.write('\n');
+            out.write(days[day]);
+            out.write(':');
+            out.write(ScheduleRenderer.NEWLINE);
+            ScheduleRenderer.repeat(out, '-', 20);
+            out.write(ScheduleRenderer.NEWLINE);
+
+            for (int shift = 0; shift < shifts.length; shift++) {
+                int slot = day * shifts.length + shift;
+                ScheduleRenderer.padRight(out, shifts[shift], 10);
+                out.write(": ");
+                if (slotSizes[slot] == 0) {
+                    out.write("No employees assigned");
+                }
+                for (int i = 0; i < slotSizes[slot]; i++) {
+                    if (i > 0) {
+                        out.write(", ");
+                    }
+                    out.write(names[slotMembers[slot][i]]);
+                }
+                out.write(ScheduleRenderer.NEWLINE);
+            }
+        }
+
+        out.write('\n');
+        ScheduleRenderer.repeat(out, '=', 50);
+        out.write(ScheduleRenderer.NEWLINE);
+        writeEmployeeSummary(out);
+    }
+
+    // Compact form used by batch output: one "Day Shift: names" line per slot
+    public void appendSchedule(StringBuilder out) {
+        for (int day = 0; day < days.length; day++) {
+            for (int shift = 0; shift < shifts.length; shift++) {
+                int slot = day * shifts.length + shift;
+                out.append(days[day]).append(' ').append(shifts[shift]).append(": ");
+                if (slotSizes[slot] == 0) {
+                    out.append("No employees assigned");
+                }
+                for (int i = 0; i < slotSizes[slot]; i++) {
+                    if (i > 0) {
+                        out.append(", ");
+                    }
+                    out.append(names[slotMembers[slot][i]]);
+                }
+                out.append('\n');
+            }
+        }
+    }
+
+    // Missing people summed over all slots below the minimum
+    public int coverageGaps() {
+        int gaps = 0;
+        for (int size : slotSizes) {
+            gaps += Math.max(0, minEmployeesPerShift - size);
+        }
+        return gaps;
+    }
+
+    private void writeEmployeeSummary(Writer out) throws IOException {
+        out.write("\nEMPLOYEE SUMMARY:");
+        out.write(ScheduleRenderer.NEWLINE);
+        ScheduleRenderer.repeat(out, '-', 30);
+        out.write(ScheduleRenderer.NEWLINE);
+
+        for (int id = 0; id < employeeCount; id++) {
+            ScheduleRenderer.padRight(out, names[id], 15);
+            out.write(": ");
+            ScheduleRenderer.writeInt(out, Integer.bitCount(weekMasks[id]));
+            out.write(" days worked");
+            out.write(ScheduleRenderer.NEWLINE);
+        }
+    }
+
+    // Optimizer score against the greedy schedule it started from
+    public static class OptimizationReport {
+        private final int preferences;
+        private final int honored;
+        private final int greedyHonored;
+        private final int coverageGaps;
+        private final int greedyCoverageGaps;
+        private final long moves;
+        private final int workers;
+        private final long elapsedMillis;
+        private final long workerAllocatedBytes;
+
+        OptimizationReport(int preferences, int honored, int greedyHonored, int coverageGaps,
+                           int greedyCoverageGaps, long moves, int workers, long elapsedMillis, long workerAllocatedBytes) {
+            this.preferences = preferences;
+            this.honored = honored;
+            this.greedyHonored = greedyHonored;
+            this.coverageGaps = coverageGaps;
+            this.greedyCoverageGaps = greedyCoverageGaps;
+            this.moves = moves;
+            this.workers = workers;
+            this.elapsedMillis = elapsedMillis;
+            this.workerAllocatedBytes = workerAllocatedBytes;
+        }
+
+        public int getPreferences() { return preferences; }
+        public int getHonored() { return honored; }
+        public int getGreedyHonored() { return greedyHonored; }
+        public int getCoverageGaps() { return coverageGaps; }
+        public int getGreedyCoverageGaps() { return greedyCoverageGaps; }
+        public long getMoves() { return moves; }
+        public int getWorkers() { return workers; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        // Heap allocated by the optimizer's own threads, which don't outlive the call
+        public long getWorkerAllocatedBytes() { return workerAllocatedBytes; }
+
+        @Override
+        public String toString() {
+            return "Optimizer: honored " + honored + " of " + preferences + " preferences (greedy " + greedyHonored +
+                   "), coverage gaps " + coverageGaps + " (greedy " + greedyCoverageGaps + "), " +
+                   moves + " moves on " + workers + " workers in " + elapsedMillis + " ms";
+        }
+    }
+
+    // One line of a repair diff: an assignment that was added or removed
+    public static class ScheduleChange {
+        private final String employee;
+        private final String day;
+        private final String shift;
+        private final boolean added;
+
+        public ScheduleChange(String employee, String day, String shift, boolean added) {
+            this.employee = employee;
+            this.day = day;
+            this.shift = shift;
+            this.added = added;
+        }
+
+        public String getEmployee() { return employee; }
+        public String getDay() { return day; }
+        public String getShift() { return shift; }
+        public boolean isAdded() { return added; }
+
+        @Override
+        public String toString() {
+            return (added ? "+ " : "- ") + employee + " " + day + " " + shift;
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= names.length) {
+            return;
+        }
+        int capacity = Math.max(required, names.length * 2);
+        int oldTableLength = preferences.length;
+        names = Arrays.copyOf(names, capacity);
+        weekMasks = Arrays.copyOf(weekMasks, capacity);
+        blockedDays = Arrays.copyOf(blockedDays, capacity);
+        preferences = Arrays.copyOf(preferences, capacity * days.length);
+        assignedShifts = Arrays.copyOf(assignedShifts, capacity * days.length);
+        Arrays.fill(preferences, oldTableLength, preferences.length, NO_SHIFT);
+        Arrays.fill(assignedShifts, oldTableLength, assignedShifts.length, NO_SHIFT);
+    }
+
+    private byte[] newShiftTable(int capacity) {
+        byte[] table = new byte[capacity * days.length];
+        Arrays.fill(table, NO_SHIFT);
+        return table;
+    }
+
+    private static Map<String, Integer> indexOf(String[] values) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            index.put(values[i], i);
+        }
+        return index;
+    }
+}
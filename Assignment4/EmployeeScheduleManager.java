@@ -1,13 +1,16 @@
+import java.io.*;
 import java.util.*;
 
-public class EmployeeScheduleManager {
-    private static final String[] DAYS = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
-    private static final String[] SHIFTS = {"Morning", "Afternoon", "Evening"};
-    private static final int MAX_DAYS_PER_EMPLOYEE = 5;
-    private static final int MIN_EMPLOYEES_PER_SHIFT = 2;
+public class EmployeeScheduleManager implements Scheduler {
+    private static final String[] DAYS = Scheduler.DEFAULT_DAYS;
+    private static final String[] SHIFTS = Scheduler.DEFAULT_SHIFTS;
+    private static final int MAX_DAYS_PER_EMPLOYEE = Scheduler.DEFAULT_MAX_DAYS_PER_EMPLOYEE;
+    private static final int MIN_EMPLOYEES_PER_SHIFT = Scheduler.DEFAULT_MIN_EMPLOYEES_PER_SHIFT;
     
     private Map<String, Employee> employees;
     private Map<String, Map<String, List<String>>> schedule; // day -> shift -> employees
+    private AvailabilityIndex availability; // rebuilt by generateSchedule
+    private ScheduleListener listener;      // null: assignment events are off
     
     public EmployeeScheduleManager() {
         this.employees = new HashMap<>();
@@ -28,6 +31,10 @@ public class EmployeeScheduleManager {
         employees.put(name, new Employee(name));
     }
     
+    public void setListener(ScheduleListener listener) {
+        this.listener = listener;
+    }
+    
     public void setEmployeePreference(String name, String day, String shift) {
         if (employees.containsKey(name)) {
             employees.get(name).setPreference(day, shift);
@@ -35,6 +42,12 @@ public class EmployeeScheduleManager {
     }
     
     public void generateSchedule() {
+        // Rebuild from scratch rather than stacking onto a previous run
+        clearSchedule();
+        
+        // Per-day free lists over the current roster, kept in sync by assignShift
+        availability = new AvailabilityIndex(employees);
+        
         // First pass: Fill minimum requirements (priority over preferences)
         fillMinimumRequirements();
         
@@ -46,24 +59,20 @@ public class EmployeeScheduleManager {
     }
     
     private void assignPreferredShifts() {
-        for (String day : DAYS) {
-            for (String employeeName : employees.keySet()) {
-                Employee employee = employees.get(employeeName);
-                
-                // Check if employee can work more days
-                if (employee.getDaysWorked() >= MAX_DAYS_PER_EMPLOYEE) {
-                    continue;
-                }
-                
-                // Check if employee already has a shift this day
-                if (employee.hasShiftOnDay(day)) {
-                    continue;
-                }
+        for (int dayIndex = 0; dayIndex < DAYS.length; dayIndex++) {
+            String day = DAYS[dayIndex];
+            
+            // Only visit employees who can still work this day (under 5 days, no shift yet)
+            BitSet free = availability.freeOn(dayIndex);
+            for (int i = free.nextSetBit(0); i >= 0; i = free.nextSetBit(i + 1)) {
+                Employee employee = availability.employeeAt(i);
                 
                 String preferredShift = employee.getPreference(day);
                 if (preferredShift != null && schedule.get(day).get(preferredShift).size() < 3) {
-                    schedule.get(day).get(preferredShift).add(employeeName);
-                    employee.assignShift(day, preferredShift);
+                    String employeeName = assignShift(i, day, preferredShift);
+                    if (listener != null) {
+                        listener.onAssigned(employeeName, day, preferredShift, "preference");
+                    }
                 }
             }
         }
@@ -74,67 +83,49 @@ public class EmployeeScheduleManager {
         // Available: 9 employees × 5 days = 45 employee-shifts
         // Strategy: Round-robin distribution to ensure all days get covered
         
-        // Create a list of all shifts that need to be filled
-        List<String[]> shiftsToFill = new ArrayList<>();
-        for (String day : DAYS) {
-            for (String shift : SHIFTS) {
-                shiftsToFill.add(new String[]{day, shift});
-            }
-        }
-        
         // Round-robin assignment: assign employees to shifts in rotation
         int employeeIndex = 0;
-        List<String> employeeNames = new ArrayList<>(employees.keySet());
         
-        for (String[] shiftInfo : shiftsToFill) {
-            String day = shiftInfo[0];
-            String shift = shiftInfo[1];
-            List<String> shiftEmployees = schedule.get(day).get(shift);
-            
-            // Assign 2 employees to this shift
-            for (int i = 0; i < MIN_EMPLOYEES_PER_SHIFT; i++) {
-                String employeeName = findNextAvailableEmployee(day, employeeNames, employeeIndex);
-                if (employeeName != null) {
-                    shiftEmployees.add(employeeName);
-                    employees.get(employeeName).assignShift(day, shift);
-                    System.out.println("Assigned " + employeeName + " to " + day + " " + shift + " (minimum requirement)");
-                    employeeIndex = (employeeIndex + 1) % employeeNames.size();
-                } else {
-                    System.out.println("WARNING: Cannot meet minimum requirement for " + day + " " + shift + 
-                                     " (need more employees or adjust preferences)");
-                    break;
+        for (int dayIndex = 0; dayIndex < DAYS.length; dayIndex++) {
+            String day = DAYS[dayIndex];
+            for (String shift : SHIFTS) {
+                // Assign 2 employees to this shift
+                for (int i = 0; i < MIN_EMPLOYEES_PER_SHIFT; i++) {
+                    int position = findNextAvailableEmployee(dayIndex, employeeIndex);
+                    if (position >= 0) {
+                        String employeeName = assignShift(position, day, shift);
+                        if (listener != null) {
+                            listener.onAssigned(employeeName, day, shift, "minimum requirement");
+                        }
+                        employeeIndex = (employeeIndex + 1) % availability.size();
+                    } else {
+                        if (listener != null) {
+                            listener.onMinimumNotMet(day, shift);
+                        }
+                        break;
+                    }
                 }
             }
         }
     }
     
-    private String findNextAvailableEmployee(String day, List<String> employeeNames, int startIndex) {
-        // Try to find an available employee starting from the given index
-        for (int i = 0; i < employeeNames.size(); i++) {
-            int index = (startIndex + i) % employeeNames.size();
-            String employeeName = employeeNames.get(index);
-            Employee employee = employees.get(employeeName);
-            
-            if (employee.getDaysWorked() < MAX_DAYS_PER_EMPLOYEE && !employee.hasShiftOnDay(day)) {
-                return employeeName;
-            }
-        }
-        return null;
+    private int findNextAvailableEmployee(int dayIndex, int startIndex) {
+        // First available employee at or after the given index, wrapping around
+        return availability.nextAvailable(dayIndex, startIndex);
     }
     
     private void distributeRemainingCapacity() {
         // Find employees who haven't worked 5 days yet
-        List<String> availableEmployees = new ArrayList<>();
-        for (String employeeName : employees.keySet()) {
-            Employee employee = employees.get(employeeName);
-            if (employee.getDaysWorked() < MAX_DAYS_PER_EMPLOYEE) {
-                availableEmployees.add(employeeName);
+        List<Integer> availableEmployees = new ArrayList<>();
+        for (int i = 0; i < availability.size(); i++) {
+            if (availability.employeeAt(i).getDaysWorked() < MAX_DAYS_PER_EMPLOYEE) {
+                availableEmployees.add(i);
             }
         }
         
         // Distribute remaining capacity across all days evenly
-        for (String employeeName : availableEmployees) {
-            Employee employee = employees.get(employeeName);
+        for (int position : availableEmployees) {
+            Employee employee = availability.employeeAt(position);
             int remainingDays = MAX_DAYS_PER_EMPLOYEE - employee.getDaysWorked();
             
             // Find days where this employee can work and shifts need more people
@@ -148,9 +139,10 @@ public class EmployeeScheduleManager {
                     
                     // Add employee if shift has less than 3 people (to avoid over-staffing)
                     if (shiftEmployees.size() < 3) {
-                        shiftEmployees.add(employeeName);
-                        employee.assignShift(day, shift);
-                        System.out.println("Assigned " + employeeName + " to " + day + " " + shift + " (additional capacity)");
+                        String employeeName = assignShift(position, day, shift);
+                        if (listener != null) {
+                            listener.onAssigned(employeeName, day, shift, "additional capacity");
+                        }
                         remainingDays--;
                         break; // Move to next day
                     }
@@ -160,33 +152,30 @@ public class EmployeeScheduleManager {
     }
     
     private String findAvailableEmployee(String day) {
-        for (String employeeName : employees.keySet()) {
-            Employee employee = employees.get(employeeName);
-            
-            // Check if employee can work more days and doesn't have shift this day
-            if (employee.getDaysWorked() < MAX_DAYS_PER_EMPLOYEE && !employee.hasShiftOnDay(day)) {
-                return employeeName;
-            }
-        }
-        return null;
+        // Employee can work more days and doesn't have shift this day
+        int position = availability.nextAvailable(dayIndexOf(day), 0);
+        return position >= 0 ? availability.nameAt(position) : null;
     }
     
     private String findEmployeeForForcedAssignment(String day) {
         // Find employee who hasn't worked 5 days yet and doesn't have shift this day
-        for (String employeeName : employees.keySet()) {
-            Employee employee = employees.get(employeeName);
-            
-            if (employee.getDaysWorked() < MAX_DAYS_PER_EMPLOYEE && !employee.hasShiftOnDay(day)) {
-                return employeeName;
-            }
-        }
-        return null;
+        int position = availability.nextAvailable(dayIndexOf(day), 0);
+        return position >= 0 ? availability.nameAt(position) : null;
+    }
+    
+    private String assignShift(int position, String day, String shift) {
+        String employeeName = availability.nameAt(position);
+        schedule.get(day).get(shift).add(employeeName);
+        availability.employeeAt(position).assignShift(day, shift);
+        availability.refresh(position);
+        return employeeName;
     }
     
     private void resolveConflicts() {
         // Check for employees working more than 5 days
-        for (String employeeName : employees.keySet()) {
-            Employee employee = employees.get(employeeName);
+        for (int position = 0; position < availability.size(); position++) {
+            String employeeName = availability.nameAt(position);
+            Employee employee = availability.employeeAt(position);
             
             if (employee.getDaysWorked() > MAX_DAYS_PER_EMPLOYEE) {
                 // Remove excess shifts
@@ -199,37 +188,107 @@ public class EmployeeScheduleManager {
                     schedule.get(day).get(shift).remove(employeeName);
                     employee.removeShift(day, shift);
                 }
+                availability.refresh(position);
+            }
+        }
+    }
+    
+    private void clearSchedule() {
+        for (String day : DAYS) {
+            for (String shift : SHIFTS) {
+                schedule.get(day).get(shift).clear();
+            }
+        }
+        for (Employee employee : employees.values()) {
+            employee.clearShifts();
+        }
+    }
+    
+    private static int dayIndexOf(String day) {
+        for (int i = 0; i < DAYS.length; i++) {
+            if (DAYS[i].equals(day)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown day: " + day);
+    }
+    
+    public String getAssignedShift(String name, String day) {
+        Employee employee = employees.get(name);
+        return employee == null ? null : employee.getShift(day);
+    }
+    
+    public void forEachSlot(SlotVisitor visitor) {
+        for (String day : DAYS) {
+            for (String shift : SHIFTS) {
+                List<String> shiftEmployees = schedule.get(day).get(shift);
+                visitor.slot(day, shift, shiftEmployees.size());
+                for (String employeeName : shiftEmployees) {
+                    visitor.employee(employeeName);
+                }
             }
         }
     }
     
     public void printSchedule() {
-        System.out.println("\n=== WEEKLY EMPLOYEE SCHEDULE ===");
-        System.out.println("=" + "=".repeat(50));
+        Writer out = ScheduleRenderer.console();
+        try {
+            writeSchedule(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    public void writeSchedule(Writer out) throws IOException {
+        out.write("\n=== WEEKLY EMPLOYEE SCHEDULE ===");
+        out.write(ScheduleRenderer.NEWLINE);
+        ScheduleRenderer.repeat(out, '=', 51);
+        out.write(ScheduleRenderer.NEWLINE);
         
         for (String day : DAYS) {
-            System.out.println("\n" + day + ":");
-            System.out.println("-".repeat(20));
+            out.write('\n');
+            out.write(day);
+            out.write(':');
+            out.write(ScheduleRenderer.NEWLINE);
+            ScheduleRenderer.repeat(out, '-', 20);
+            out.write(ScheduleRenderer.NEWLINE);
             
             for (String shift : SHIFTS) {
                 List<String> shiftEmployees = schedule.get(day).get(shift);
-                System.out.printf("%-10s: %s%n", shift, 
-                    shiftEmployees.isEmpty() ? "No employees assigned" : 
-                    String.join(", ", shiftEmployees));
+                ScheduleRenderer.padRight(out, shift, 10);
+                out.write(": ");
+                if (shiftEmployees.isEmpty()) {
+                    out.write("No employees assigned");
+                }
+                for (int i = 0; i < shiftEmployees.size(); i++) {
+                    if (i > 0) {
+                        out.write(", ");
+                    }
+                    out.write(shiftEmployees.get(i));
+                }
+                out.write(ScheduleRenderer.NEWLINE);
             }
         }
         
-        System.out.println("\n" + "=".repeat(50));
-        printEmployeeSummary();
+        out.write('\n');
+        ScheduleRenderer.repeat(out, '=', 50);
+        out.write(ScheduleRenderer.NEWLINE);
+        writeEmployeeSummary(out);
     }
     
-    private void printEmployeeSummary() {
-        System.out.println("\nEMPLOYEE SUMMARY:");
-        System.out.println("-".repeat(30));
+    private void writeEmployeeSummary(Writer out) throws IOException {
+        out.write("\nEMPLOYEE SUMMARY:");
+        out.write(ScheduleRenderer.NEWLINE);
+        ScheduleRenderer.repeat(out, '-', 30);
+        out.write(ScheduleRenderer.NEWLINE);
         
-        for (String employeeName : employees.keySet()) {
-            Employee employee = employees.get(employeeName);
-            System.out.printf("%-15s: %d days worked%n", employeeName, employee.getDaysWorked());
+        for (Map.Entry<String, Employee> entry : employees.entrySet()) {
+            ScheduleRenderer.padRight(out, entry.getKey(), 15);
+            out.write(": ");
+            ScheduleRenderer.writeInt(out, entry.getValue().getDaysWorked());
+            out.write(" days worked");
+            out.write(ScheduleRenderer.NEWLINE);
         }
     }
     
@@ -269,6 +328,15 @@ public class EmployeeScheduleManager {
             }
         }
         
+        public void clearShifts() {
+            assignedShifts.clear();
+            daysWorked = 0;
+        }
+        
+        public String getShift(String day) {
+            return assignedShifts.get(day);
+        }
+        
         public boolean hasShiftOnDay(String day) {
             return assignedShifts.containsKey(day);
         }
@@ -293,10 +361,74 @@ public class EmployeeScheduleManager {
         }
     }
     
+    // Availability index: fixes an order over the roster and keeps one bitset per
+    // day, where bit i is set while employee i can still take a shift that day
+    // (under 5 days and not already working it). Picking the next employee is a
+    // nextSetBit call instead of a walk over the whole employee list.
+    private static class AvailabilityIndex {
+        private final String[] names;
+        private final Employee[] members;
+        private final BitSet[] freeByDay;
+        
+        public AvailabilityIndex(Map<String, Employee> employees) {
+            int size = employees.size();
+            this.names = new String[size];
+            this.members = new Employee[size];
+            this.freeByDay = new BitSet[DAYS.length];
+            for (int d = 0; d < DAYS.length; d++) {
+                // Everyone starts free; only employees with existing shifts need a closer look
+                freeByDay[d] = new BitSet(size);
+                freeByDay[d].set(0, size);
+            }
+            
+            int i = 0;
+            for (Map.Entry<String, Employee> entry : employees.entrySet()) {
+                names[i] = entry.getKey();
+                members[i] = entry.getValue();
+                if (members[i].getDaysWorked() > 0) {
+                    refresh(i);
+                }
+                i++;
+            }
+        }
+        
+        public int size() {
+            return names.length;
+        }
+        
+        public String nameAt(int position) {
+            return names[position];
+        }
+        
+        public Employee employeeAt(int position) {
+            return members[position];
+        }
+        
+        public BitSet freeOn(int dayIndex) {
+            return freeByDay[dayIndex];
+        }
+        
+        public int nextAvailable(int dayIndex, int startIndex) {
+            BitSet free = freeByDay[dayIndex];
+            int position = free.nextSetBit(startIndex);
+            return position >= 0 ? position : free.nextSetBit(0);
+        }
+        
+        // Recompute an employee's bits after their shifts changed
+        public void refresh(int position) {
+            Employee employee = members[position];
+            boolean underLimit = employee.getDaysWorked() < MAX_DAYS_PER_EMPLOYEE;
+            for (int d = 0; d < DAYS.length; d++) {
+                freeByDay[d].set(position, underLimit && !employee.hasShiftOnDay(DAYS[d]));
+            }
+        }
+    }
+    
     // Main method for testing
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
         EmployeeScheduleManager manager = new EmployeeScheduleManager();
+        manager.setListener(ScheduleListener.CONSOLE);
         
         System.out.println("=== EMPLOYEE SCHEDULE MANAGER ===");
         System.out.println("Enter employee information and preferences:");
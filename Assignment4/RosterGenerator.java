@@ -0,0 +1,74 @@
+import java.util.*;
+
+// Seeded synthetic rosters for the benchmarks. Three knobs: roster size,
+// preference density (chance that an employee states a preference for a
+// given day) and skew (Zipf exponent over the shifts; 0 spreads preferences
+// evenly, larger values pile them onto the first, "popular" shift).
+public class RosterGenerator {
+    static final String[] DAYS = Scheduler.DEFAULT_DAYS;
+    static final String[] SHIFTS = Scheduler.DEFAULT_SHIFTS;
+    static final byte NO_PREFERENCE = -1;
+
+    private final int employees;
+    private final double density;
+    private final double skew;
+    private final byte[] preferences; // employee * DAYS.length + day -> shift index or NO_PREFERENCE
+
+    public RosterGenerator(int employees, double density, double skew, long seed) {
+        this.employees = employees;
+        this.density = density;
+        this.skew = skew;
+        this.preferences = generate(seed);
+    }
+
+    private byte[] generate(long seed) {
+        double[] cumulative = new double[SHIFTS.length];
+        double total = 0;
+        for (int shift = 0; shift < SHIFTS.length; shift++) {
+            total += 1.0 / Math.pow(shift + 1, skew);
+            cumulative[shift] = total;
+        }
+
+        Random random = new Random(seed);
+        byte[] table = new byte[employees * DAYS.length];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = NO_PREFERENCE;
+            if (random.nextDouble() < density) {
+                double pick = random.nextDouble() * total;
+                byte shift = 0;
+                while (cumulative[shift] < pick) {
+                    shift++;
+                }
+                table[i] = shift;
+            }
+        }
+        return table;
+    }
+
+    public void load(Scheduler scheduler) {
+        for (int employee = 0; employee < employees; employee++) {
+            String name = employeeName(employee);
+            scheduler.addEmployee(name);
+            for (int day = 0; day < DAYS.length; day++) {
+                byte shift = preferences[employee * DAYS.length + day];
+                if (shift != NO_PREFERENCE) {
+                    scheduler.setEmployeePreference(name, DAYS[day], SHIFTS[shift]);
+                }
+            }
+        }
+    }
+
+    public int getEmployees() { return employees; }
+    public double getDensity() { return density; }
+    public double getSkew() { return skew; }
+
+    public String employeeName(int employee) {
+        return "Employee" + employee;
+    }
+
+    // Preferred shift name, or null when the employee stated none for that day
+    public String getPreference(int employee, int day) {
+        byte shift = preferences[employee * DAYS.length + day];
+        return shift == NO_PREFERENCE ? null : SHIFTS[shift];
+    }
+}
@@ -0,0 +1,139 @@
+import java.io.*;
+import java.util.*;
+import java.util.function.Supplier;
+
+// Times generateSchedule for the map-based and dense engines on seeded
+// synthetic rosters, then the dense engine's incremental repairs against a
+// full rebuild, then rendering and export. Usage: java ScheduleBenchmark [maxEmployees]
+public class ScheduleBenchmark {
+    private static final String[] DAYS = Scheduler.DEFAULT_DAYS;
+    private static final String[] SHIFTS = Scheduler.DEFAULT_SHIFTS;
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+    private static final int REPAIRS = 10_000;
+
+    public static void main(String[] args) throws IOException {
+        int maxEmployees = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        System.out.printf("%-12s %-30s %-30s%n", "employees", "EmployeeScheduleManager (ms)", "DenseScheduleManager (ms)");
+        for (int size = 9; size <= maxEmployees; size = nextSize(size)) {
+            int employees = size;
+            double mapMillis = time(EmployeeScheduleManager::new, employees);
+            double denseMillis = time(() -> new DenseScheduleManager(employees), employees);
+            System.out.printf("%-12d %-30.3f %-30.3f%n", employees, mapMillis, denseMillis);
+        }
+
+        System.out.printf("%n%-12s %-24s %-24s %-24s%n", "employees", "generateSchedule (us)", "markUnavailable (us)", "updatePreference (us)");
+        for (int employees = 9; employees <= maxEmployees; employees = nextSize(employees)) {
+            timeRepairs(employees);
+        }
+
+        System.out.printf("%n%-10s %-12s %-16s %-12s %-12s %-12s%n", "engine", "employees", "printSchedule", "csv", "json", "binary");
+        timeRendering("map", new EmployeeScheduleManager(), maxEmployees);
+        timeRendering("dense", new DenseScheduleManager(maxEmployees), maxEmployees);
+    }
+
+    // Mean cost of one call-out and one preference change on a live dense schedule
+    private static void timeRepairs(int employees) {
+        Random random = new Random(7L);
+        long rebuildNanos = Long.MAX_VALUE;
+        long unavailableNanos = 0;
+        long preferenceNanos = 0;
+
+        DenseScheduleManager scheduler = new DenseScheduleManager(employees);
+        loadRoster(scheduler, employees, 42L);
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            long start = System.nanoTime();
+            scheduler.generateSchedule();
+            rebuildNanos = Math.min(rebuildNanos, System.nanoTime() - start);
+        }
+
+        // The first half warms up the repair paths (and builds the lazy preference index)
+        for (int i = -REPAIRS; i < REPAIRS; i++) {
+            String name = "Employee" + random.nextInt(employees);
+            String day = DAYS[random.nextInt(DAYS.length)];
+            String shift = SHIFTS[random.nextInt(SHIFTS.length)];
+
+            long start = System.nanoTime();
+            scheduler.updatePreference(name, day, shift);
+            long middle = System.nanoTime();
+            // Keep call-outs rare enough that small rosters stay schedulable
+            if (i % 100 == 0) {
+                scheduler.markUnavailable(name, day);
+            }
+            long end = System.nanoTime();
+
+            if (i < 0) {
+                continue;
+            }
+            preferenceNanos += middle - start;
+            unavailableNanos += end - middle;
+        }
+        System.out.printf("%-12d %-24.1f %-24.2f %-24.2f%n", employees, rebuildNanos / 1_000.0,
+            unavailableNanos / 1_000.0 / (REPAIRS / 100), preferenceNanos / 1_000.0 / REPAIRS);
+    }
+
+    // Best-of wall time (ms) for the text schedule and each export format, all into discarding buffered sinks
+    private static void timeRendering(String engine, Scheduler scheduler, int employees) throws IOException {
+        loadRoster(scheduler, employees, 42L);
+        scheduler.generateSchedule();
+
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        PrintStream console = System.out;
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            long start = System.nanoTime();
+            try {
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                scheduler.printSchedule();
+            } finally {
+                System.setOut(console);
+            }
+            best[0] = Math.min(best[0], System.nanoTime() - start);
+
+            Writer text = new BufferedWriter(new OutputStreamWriter(OutputStream.nullOutputStream()), 1 << 16);
+            start = System.nanoTime();
+            ScheduleExporter.writeCsv(scheduler, text);
+            text.flush();
+            best[1] = Math.min(best[1], System.nanoTime() - start);
+
+            start = System.nanoTime();
+            ScheduleExporter.writeJson(scheduler, text);
+            text.flush();
+            best[2] = Math.min(best[2], System.nanoTime() - start);
+
+            OutputStream binary = new BufferedOutputStream(OutputStream.nullOutputStream(), 1 << 16);
+            start = System.nanoTime();
+            ScheduleExporter.writeBinary(scheduler, binary);
+            binary.flush();
+            best[3] = Math.min(best[3], System.nanoTime() - start);
+        }
+        System.out.printf("%-10s %-12d %-16.3f %-12.3f %-12.3f %-12.3f%n", engine, employees,
+            best[0] / 1e6, best[1] / 1e6, best[2] / 1e6, best[3] / 1e6);
+    }
+
+    private static int nextSize(int employees) {
+        return employees == 9 ? 100 : employees * 10;
+    }
+
+    // Median wall time of generateSchedule on a freshly loaded roster; loading is not timed
+    private static double time(Supplier<Scheduler> factory, int employees) {
+        double[] samples = new double[MEASURED_RUNS];
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            Scheduler scheduler = factory.get();
+            loadRoster(scheduler, employees, 42L);
+            long start = System.nanoTime();
+            scheduler.generateSchedule();
+            long elapsed = System.nanoTime() - start;
+            if (run >= WARMUP_RUNS) {
+                samples[run - WARMUP_RUNS] = elapsed / 1_000_000.0;
+            }
+        }
+        Arrays.sort(samples);
+        return samples[MEASURED_RUNS / 2];
+    }
+
+    // Every employee gets a random preference (or none) for each day
+    static void loadRoster(Scheduler scheduler, int employees, long seed) {
+        new RosterGenerator(employees, 0.75, 0.0, seed).load(scheduler);
+    }
+}
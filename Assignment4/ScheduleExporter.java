@@ -0,0 +1,200 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Structured schedule export for any Scheduler. All three formats stream
+// through forEachSlot into a caller-supplied (buffered) writer or stream, so
+// a 100k-employee schedule is never built up as one big String.
+//
+//   CSV    day,shift,employee - one row per assignment
+//   JSON   {"slots":[{"day":..,"shift":..,"employees":[..]}, ..]} - every slot, empty ones too
+//   Binary "SCH1", then one record per slot: day ref, shift ref, count, count employee refs.
+//          All numbers are unsigned LEB128 varints. A ref is an index into that kind's
+//          table of names seen so far. When it equals the table size, a new name follows
+//          as varint byte length plus UTF-8 bytes.
+public final class ScheduleExporter {
+    private static final byte[] BINARY_MAGIC = {'S', 'C', 'H', '1'};
+
+    private ScheduleExporter() {
+    }
+
+    public static void writeCsv(Scheduler scheduler, Writer out) throws IOException {
+        out.write("day,shift,employee\n");
+        visit(scheduler, new IoVisitor() {
+            private String day;
+            private String shift;
+
+            @Override
+            void onSlot(String day, String shift, int size) {
+                this.day = day;
+                this.shift = shift;
+            }
+
+            @Override
+            void onEmployee(String name) throws IOException {
+                writeCsvField(out, day);
+                out.write(',');
+                writeCsvField(out, shift);
+                out.write(',');
+                writeCsvField(out, name);
+                out.write('\n');
+            }
+        });
+    }
+
+    public static void writeJson(Scheduler scheduler, Writer out) throws IOException {
+        out.write("{\"slots\":[");
+        visit(scheduler, new IoVisitor() {
+            private boolean firstSlot = true;
+            private boolean firstEmployee;
+
+            @Override
+            void onSlot(String day, String shift, int size) throws IOException {
+                if (!firstSlot) {
+                    out.write("]},");
+                }
+                firstSlot = false;
+                firstEmployee = true;
+                out.write("\n{\"day\":");
+                writeJsonString(out, day);
+                out.write(",\"shift\":");
+                writeJsonString(out, shift);
+                out.write(",\"employees\":[");
+            }
+
+            @Override
+            void onEmployee(String name) throws IOException {
+                if (!firstEmployee) {
+                    out.write(',');
+                }
+                firstEmployee = false;
+                writeJsonString(out, name);
+            }
+
+            @Override
+            void finish() throws IOException {
+                if (!firstSlot) {
+                    out.write("]}");
+                }
+            }
+        });
+        out.write("\n]}\n");
+    }
+
+    public static void writeBinary(Scheduler scheduler, OutputStream out) throws IOException {
+        out.write(BINARY_MAGIC);
+        Map<String, Integer> days = new HashMap<>();
+        Map<String, Integer> shifts = new HashMap<>();
+        Map<String, Integer> employees = new HashMap<>();
+        visit(scheduler, new IoVisitor() {
+            @Override
+            void onSlot(String day, String shift, int size) throws IOException {
+                writeRef(out, days, day);
+                writeRef(out, shifts, shift);
+                writeVarint(out, size);
+            }
+
+            @Override
+            void onEmployee(String name) throws IOException {
+                writeRef(out, employees, name);
+            }
+        });
+    }
+
+    // SlotVisitor can't throw checked exceptions, so IOExceptions travel out unchecked
+    private abstract static class IoVisitor implements Scheduler.SlotVisitor {
+        abstract void onSlot(String day, String shift, int size) throws IOException;
+
+        abstract void onEmployee(String name) throws IOException;
+
+        void finish() throws IOException {
+        }
+
+        @Override
+        public final void slot(String day, String shift, int size) {
+            try {
+                onSlot(day, shift, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public final void employee(String name) {
+            try {
+                onEmployee(name);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void visit(Scheduler scheduler, IoVisitor visitor) throws IOException {
+        try {
+            scheduler.forEachSlot(visitor);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        visitor.finish();
+    }
+
+    private static void writeCsvField(Writer out, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static void writeJsonString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write("\\u00");
+                out.write(Character.forDigit(c >> 4, 16));
+                out.write(Character.forDigit(c & 0xF, 16));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    private static void writeRef(OutputStream out, Map<String, Integer> table, String name) throws IOException {
+        Integer ref = table.get(name);
+        if (ref != null) {
+            writeVarint(out, ref);
+            return;
+        }
+        writeVarint(out, table.size());
+        table.put(name, table.size());
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
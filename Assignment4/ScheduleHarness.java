@@ -0,0 +1,202 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Supplier;
+
+// Benchmark and quality harness for the schedulers. For every combination of
+// engine, roster size, preference density and skew it loads a seeded synthetic
+// roster (RosterGenerator) and times repeated generateSchedule calls. It also
+// measures heap allocated per run and scores the resulting schedule. Results are
+// JSON lines, one object per combination, so two runs can be diffed or loaded
+// into a notebook.
+//
+// Usage: java ScheduleHarness [key=value ...]
+//   engines=map,dense,optimized  sizes=9,1000,100000  density=0.25,0.75  skew=0,2
+//   runs=5  warmup=3  seed=42  budget=200 (optimizer ms)  out=results.jsonl (default stdout)
+public class ScheduleHarness {
+    private static final String[] DAYS = RosterGenerator.DAYS;
+    private static final String[] SHIFTS = RosterGenerator.SHIFTS;
+    private static final int MAX_DAYS_PER_EMPLOYEE = Scheduler.DEFAULT_MAX_DAYS_PER_EMPLOYEE;
+    private static final int MIN_EMPLOYEES_PER_SHIFT = Scheduler.DEFAULT_MIN_EMPLOYEES_PER_SHIFT;
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (split < 0) {
+                System.out.println("Usage: java ScheduleHarness [engines=map,dense,optimized] [sizes=9,1000] [density=0.75] " +
+                                 "[skew=0] [runs=5] [warmup=3] [seed=42] [budget=200] [out=results.jsonl]");
+                return;
+            }
+            options.put(arg.substring(0, split), arg.substring(split + 1));
+        }
+
+        String[] engines = options.getOrDefault("engines", "map,dense").split(",");
+        int[] sizes = Arrays.stream(options.getOrDefault("sizes", "9,1000,100000").split(",")).mapToInt(Integer::parseInt).toArray();
+        double[] densities = Arrays.stream(options.getOrDefault("density", "0.25,0.75").split(",")).mapToDouble(Double::parseDouble).toArray();
+        double[] skews = Arrays.stream(options.getOrDefault("skew", "0,2").split(",")).mapToDouble(Double::parseDouble).toArray();
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "3"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        long budgetMillis = Long.parseLong(options.getOrDefault("budget", "200"));
+
+        PrintStream console = System.out;
+        PrintStream results = options.containsKey("out")
+            ? new PrintStream(new BufferedOutputStream(new FileOutputStream(options.get("out"))), false, StandardCharsets.UTF_8)
+            : console;
+        try {
+            for (String engine : engines) {
+                for (int size : sizes) {
+                    for (double density : densities) {
+                        for (double skew : skews) {
+                            RosterGenerator roster = new RosterGenerator(size, density, skew, seed);
+                            Measurement measurement = measure(factory(engine, size, budgetMillis), roster, warmup, runs);
+                            results.println(toJson(engine, roster, seed, measurement));
+                            results.flush();
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (results != console) {
+                results.close();
+            }
+        }
+    }
+
+    private static Supplier<Scheduler> factory(String engine, int size, long budgetMillis) {
+        switch (engine) {
+            case "map":
+                return EmployeeScheduleManager::new;
+            case "dense":
+                return () -> new DenseScheduleManager(size);
+            case "optimized":
+                return () -> {
+                    DenseScheduleManager manager = new DenseScheduleManager(size);
+                    manager.setOptimizationBudget(budgetMillis);
+                    return manager;
+                };
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine + " (expected map, dense or optimized)");
+        }
+    }
+
+    static class Measurement {
+        double[] latencyMillis;
+        long allocatedBytesPerRun;
+        Quality quality;
+    }
+
+    static class Quality {
+        int coverageViolations;  // people missing from shifts below the minimum
+        int maxDaysViolations;   // employees over the weekly limit
+        int preferences;
+        int preferenceHits;
+        double daysWorkedMean;
+        double daysWorkedStddev;
+        double fairness;         // Jain's index over days worked: 1.0 = perfectly even
+    }
+
+    // Reuses one loaded scheduler: generateSchedule rebuilds from scratch each call
+    private static Measurement measure(Supplier<Scheduler> factory, RosterGenerator roster, int warmup, int runs) {
+        Measurement measurement = new Measurement();
+        measurement.latencyMillis = new double[runs];
+        Scheduler scheduler = factory.get();
+        roster.load(scheduler);
+
+        long allocated = 0;
+        for (int run = 0; run < warmup + runs; run++) {
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            scheduler.generateSchedule();
+            long elapsed = System.nanoTime() - start;
+            long bytes = allocatedBytes() - bytesBefore + workerAllocatedBytes(scheduler);
+            if (run >= warmup) {
+                measurement.latencyMillis[run - warmup] = elapsed / 1_000_000.0;
+                allocated += bytes;
+            }
+        }
+        measurement.allocatedBytesPerRun = runs == 0 ? 0 : allocated / runs;
+        measurement.quality = evaluate(scheduler, roster);
+        return measurement;
+    }
+
+    // Heap bytes allocated so far by this thread. Summing all live threads would
+    // miss the optimizer's workers: its pool is created per call and its threads
+    // exit, taking their counters with them. The optimizer reports those itself.
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getCurrentThreadAllocatedBytes();
+    }
+
+    private static long workerAllocatedBytes(Scheduler scheduler) {
+        if (scheduler instanceof DenseScheduleManager) {
+            DenseScheduleManager.OptimizationReport report = ((DenseScheduleManager) scheduler).getLastOptimization();
+            return report == null ? 0 : report.getWorkerAllocatedBytes();
+        }
+        return 0;
+    }
+
+    static Quality evaluate(Scheduler scheduler, RosterGenerator roster) {
+        Quality quality = new Quality();
+        int[] slotSizes = new int[DAYS.length * SHIFTS.length];
+        long daysSum = 0;
+        long daysSquaredSum = 0;
+
+        for (int employee = 0; employee < roster.getEmployees(); employee++) {
+            String name = roster.employeeName(employee);
+            int daysWorked = 0;
+            for (int day = 0; day < DAYS.length; day++) {
+                String shift = scheduler.getAssignedShift(name, DAYS[day]);
+                String preference = roster.getPreference(employee, day);
+                if (preference != null) {
+                    quality.preferences++;
+                    if (preference.equals(shift)) {
+                        quality.preferenceHits++;
+                    }
+                }
+                if (shift != null) {
+                    daysWorked++;
+                    slotSizes[day * SHIFTS.length + Arrays.asList(SHIFTS).indexOf(shift)]++;
+                }
+            }
+            if (daysWorked > MAX_DAYS_PER_EMPLOYEE) {
+                quality.maxDaysViolations++;
+            }
+            daysSum += daysWorked;
+            daysSquaredSum += (long) daysWorked * daysWorked;
+        }
+
+        for (int size : slotSizes) {
+            quality.coverageViolations += Math.max(0, MIN_EMPLOYEES_PER_SHIFT - size);
+        }
+        int employees = roster.getEmployees();
+        if (employees > 0) {
+            quality.daysWorkedMean = daysSum / (double) employees;
+            quality.daysWorkedStddev = Math.sqrt(Math.max(0, daysSquaredSum / (double) employees - quality.daysWorkedMean * quality.daysWorkedMean));
+        }
+        quality.fairness = daysSquaredSum == 0 ? 1.0 : (double) daysSum * daysSum / ((double) employees * daysSquaredSum);
+        return quality;
+    }
+
+    private static String toJson(String engine, RosterGenerator roster, long seed, Measurement measurement) {
+        double[] sorted = measurement.latencyMillis.clone();
+        Arrays.sort(sorted);
+        Quality quality = measurement.quality;
+        double median = sorted.length == 0 ? 0 : sorted[sorted.length / 2];
+        double p90 = sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * 0.9) - 1)];
+        double allocationRate = median == 0 ? 0 : measurement.allocatedBytesPerRun / (median / 1000.0) / (1 << 20);
+
+        return String.format(Locale.ROOT,
+            "{\"engine\":\"%s\",\"employees\":%d,\"density\":%.3f,\"skew\":%.3f,\"seed\":%d,\"runs\":%d," +
+            "\"latency_ms_median\":%.3f,\"latency_ms_p90\":%.3f,\"alloc_bytes_per_run\":%d,\"alloc_mb_per_s\":%.1f," +
+            "\"coverage_violations\":%d,\"max_days_violations\":%d,\"preferences\":%d,\"preference_hits\":%d," +
+            "\"preference_hit_rate\":%.4f,\"days_worked_mean\":%.3f,\"days_worked_stddev\":%.3f,\"fairness_jain\":%.4f}",
+            engine, roster.getEmployees(), roster.getDensity(), roster.getSkew(), seed, sorted.length,
+            median, p90, measurement.allocatedBytesPerRun, allocationRate,
+            quality.coverageViolations, quality.maxDaysViolations, quality.preferences, quality.preferenceHits,
+            quality.preferences == 0 ? 0.0 : quality.preferenceHits / (double) quality.preferences,
+            quality.daysWorkedMean, quality.daysWorkedStddev, quality.fairness);
+    }
+}
@@ -0,0 +1,29 @@
+// Receives events from the engines' assignment loops. Nothing is attached by
+// default, so the hot path costs one null check. CONSOLE prints the log lines
+// of the interactive program.
+public interface ScheduleListener {
+    void onAssigned(String employee, String day, String shift, String reason);
+
+    void onMinimumNotMet(String day, String shift);
+
+    default void onMessage(String message) {
+    }
+
+    ScheduleListener CONSOLE = new ScheduleListener() {
+        @Override
+        public void onAssigned(String employee, String day, String shift, String reason) {
+            System.out.println("Assigned " + employee + " to " + day + " " + shift + " (" + reason + ")");
+        }
+
+        @Override
+        public void onMinimumNotMet(String day, String shift) {
+            System.out.println("WARNING: Cannot meet minimum requirement for " + day + " " + shift +
+                             " (need more employees or adjust preferences)");
+        }
+
+        @Override
+        public void onMessage(String message) {
+            System.out.println(message);
+        }
+    };
+}
@@ -0,0 +1,398 @@
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Improves a greedy schedule by simulated annealing. A portfolio of searches,
+// one per core and each with its own seed and starting temperature, runs until
+// the time budget is spent or every preference is honored. The best schedule wins.
+// The searches spin for the whole budget, so they get a private fork-join pool
+// rather than the common pool that parallel streams and async tasks rely on.
+//
+// Schedules use the dense layout of DenseScheduleManager: one byte per
+// (employee, day), holding the assigned shift or NO_SHIFT.
+class ScheduleOptimizer {
+    static final byte NO_SHIFT = -1;
+
+    // A missing minimum costs more than any preference can gain, so searches never
+    // trade coverage for preferences, but they may still close gaps the greedy pass left
+    private static final long COVERAGE_WEIGHT = 1_000;
+    private static final double[] STARTING_TEMPERATURES = {0.0, 0.5, 1.0, 2.0};
+    private static final double FINAL_TEMPERATURE = 0.05;
+    private static final int MOVES_PER_CHECK = 1024;
+    private static final int COVER_SAMPLE = 64;
+
+    private final int employeeCount;
+    private final int days;
+    private final int shifts;
+    private final int maxDaysPerEmployee;
+    private final int minEmployeesPerShift;
+    private final int maxEmployeesPerShift;
+    private final byte[] preferences;      // employee * days + day -> preferred shift or NO_SHIFT
+    private final int[] blockedDays;       // employee -> bit d set when they can't work day d
+    private final int[] preferenceEntries; // every (employee * days + day) that has a preference on a day they can work
+
+    ScheduleOptimizer(int employeeCount, int days, int shifts, int maxDaysPerEmployee,
+                      int minEmployeesPerShift, int maxEmployeesPerShift, byte[] preferences, int[] blockedDays) {
+        this.employeeCount = employeeCount;
+        this.days = days;
+        this.shifts = shifts;
+        this.maxDaysPerEmployee = maxDaysPerEmployee;
+        this.minEmployeesPerShift = minEmployeesPerShift;
+        this.maxEmployeesPerShift = maxEmployeesPerShift;
+        this.preferences = preferences;
+        this.blockedDays = blockedDays;
+
+        int count = 0;
+        for (int i = 0; i < employeeCount * days; i++) {
+            if (isSearchable(i)) {
+                count++;
+            }
+        }
+        this.preferenceEntries = new int[count];
+        count = 0;
+        for (int i = 0; i < employeeCount * days; i++) {
+            if (isSearchable(i)) {
+                preferenceEntries[count++] = i;
+            }
+        }
+    }
+
+    private boolean isSearchable(int entry) {
+        return preferences[entry] != NO_SHIFT && (blockedDays[entry / days] & (1 << (entry % days))) == 0;
+    }
+
+    int preferenceCount() {
+        return preferenceEntries.length;
+    }
+
+    int honoredPreferences(byte[] assignments) {
+        int honored = 0;
+        for (int entry : preferenceEntries) {
+            if (assignments[entry] == preferences[entry]) {
+                honored++;
+            }
+        }
+        return honored;
+    }
+
+    int coverageGaps(byte[] assignments) {
+        int[] sizes = new int[days * shifts];
+        for (int i = 0; i < employeeCount * days; i++) {
+            if (assignments[i] != NO_SHIFT) {
+                sizes[(i % days) * shifts + assignments[i]]++;
+            }
+        }
+        int gaps = 0;
+        for (int size : sizes) {
+            gaps += Math.max(0, minEmployeesPerShift - size);
+        }
+        return gaps;
+    }
+
+    Result optimize(byte[] seed, long budgetMillis, int workers) {
+        if (employeeCount == 0 || budgetMillis <= 0) {
+            return new Result(seed.clone(), honoredPreferences(seed), coverageGaps(seed), 0, 0);
+        }
+        int parallelism = Math.max(workers, 1);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new PortfolioTask(seed, budgetMillis, parallelism));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static class Result {
+        final byte[] assignments;
+        final int honored;
+        final int coverageGaps;
+        final long moves;
+        final long allocatedBytes; // heap allocated on the pool's threads, which the caller's thread counters miss
+
+        Result(byte[] assignments, int honored, int coverageGaps, long moves, long allocatedBytes) {
+            this.assignments = assignments;
+            this.honored = honored;
+            this.coverageGaps = coverageGaps;
+            this.moves = moves;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        long score() {
+            return honored - COVERAGE_WEIGHT * coverageGaps;
+        }
+    }
+
+    // Heap allocated so far by the calling thread, or 0 on JVMs without the HotSpot extension
+    private static long threadAllocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    // Forks one search per worker and keeps the best result
+    private class PortfolioTask extends RecursiveTask<Result> {
+        private final byte[] seed;
+        private final long budgetMillis;
+        private final int workers;
+
+        PortfolioTask(byte[] seed, long budgetMillis, int workers) {
+            this.seed = seed;
+            this.budgetMillis = budgetMillis;
+            this.workers = workers;
+        }
+
+        @Override
+        protected Result compute() {
+            // Setting up the searches copies the schedule once per worker; count it here,
+            // before invokeAll may run one of the searches on this same thread
+            long allocatedBefore = threadAllocatedBytes();
+            List<SearchTask> searches = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                searches.add(new SearchTask(seed, budgetMillis, STARTING_TEMPERATURES[i % STARTING_TEMPERATURES.length], 31L * i + 17));
+            }
+            long allocated = threadAllocatedBytes() - allocatedBefore;
+            invokeAll(searches);
+
+            Result best = null;
+            long moves = 0;
+            for (SearchTask search : searches) {
+                Result result = search.join();
+                moves += result.moves;
+                allocated += result.allocatedBytes;
+                if (best == null || result.score() > best.score()) {
+                    best = result;
+                }
+            }
+            return new Result(best.assignments, best.honored, best.coverageGaps, moves, allocated);
+        }
+    }
+
+    // One annealing run over a private copy of the schedule
+    private class SearchTask extends RecursiveTask<Result> {
+        private final byte[] assigned;
+        private final int[] weekMasks;
+        private final int[][] slotMembers;
+        private final int[] slotSizes;
+        private final long budgetNanos;
+        private final double startingTemperature;
+        private final SplittableRandom random;
+        private int honored;
+        private int gaps;
+
+        SearchTask(byte[] seed, long budgetMillis, double startingTemperature, long randomSeed) {
+            this.assigned = new byte[seed.length];
+            Arrays.fill(assigned, NO_SHIFT);
+            this.weekMasks = new int[employeeCount];
+            this.slotMembers = new int[days * shifts][maxEmployeesPerShift + 1];
+            this.slotSizes = new int[days * shifts];
+            this.budgetNanos = budgetMillis * 1_000_000L;
+            this.startingTemperature = startingTemperature;
+            this.random = new SplittableRandom(randomSeed);
+            this.gaps = days * shifts * minEmployeesPerShift;
+            for (int i = 0; i < employeeCount * days; i++) {
+                if (seed[i] != NO_SHIFT) {
+                    add(i / days, i % days, seed[i]);
+                }
+            }
+        }
+
+        @Override
+        protected Result compute() {
+            long allocatedBefore = threadAllocatedBytes();
+            long start = System.nanoTime();
+            long deadline = start + budgetNanos;
+            double temperature = startingTemperature;
+            long moves = 0;
+            long bestScore = score();
+            byte[] best = assigned.clone();
+
+            while (true) {
+                for (int i = 0; i < MOVES_PER_CHECK; i++) {
+                    if (preferenceEntries.length == 0 || random.nextInt(10) == 0) {
+                        coverGap();
+                    } else {
+                        movePreference(temperature);
+                    }
+                }
+                moves += MOVES_PER_CHECK;
+
+                // Only snapshot at check points; copying the schedule on every improvement is too slow for big rosters
+                if (score() > bestScore) {
+                    bestScore = score();
+                    System.arraycopy(assigned, 0, best, 0, best.length);
+                }
+                long now = System.nanoTime();
+                if (now >= deadline || (honored == preferenceEntries.length && gaps == 0)) {
+                    break; // out of time, or nothing left to improve
+                }
+                if (startingTemperature > 0) {
+                    double progress = (now - start) / (double) budgetNanos;
+                    temperature = startingTemperature * Math.pow(FINAL_TEMPERATURE / startingTemperature, progress);
+                }
+            }
+
+            return new Result(best, honoredPreferences(best), coverageGaps(best), moves,
+                threadAllocatedBytes() - allocatedBefore);
+        }
+
+        // Put a random employee on a random preferred (day, shift). That may push
+        // them off another shift that day, make them drop another day to stay under
+        // the weekly limit, or bump someone out of a full slot. When the slot they
+        // leave would fall below the minimum, someone with spare capacity steps in
+        // as part of the same move, so coverage never blocks the swap.
+        private void movePreference(double temperature) {
+            int entry = preferenceEntries[random.nextInt(preferenceEntries.length)];
+            int employee = entry / days;
+            int day = entry % days;
+            byte preferred = preferences[entry];
+            byte current = assigned[entry];
+            if (current == preferred) {
+                return;
+            }
+
+            int honoredDelta = 1;
+            int gapDelta = 0;
+            int dropDay = -1;
+            int evicted = -1;
+            int cover = -1;       // steps into the slot the employee leaves, when that slot would fall short
+            int coverDay = -1;
+            byte coverShift = NO_SHIFT;
+
+            if (current != NO_SHIFT) {
+                if (slotSizes[day * shifts + current] <= minEmployeesPerShift) {
+                    coverDay = day;
+                    coverShift = current;
+                }
+            } else if (Integer.bitCount(weekMasks[employee]) >= maxDaysPerEmployee) {
+                dropDay = randomWorkedDay(weekMasks[employee]);
+                int dropEntry = employee * days + dropDay;
+                if (preferences[dropEntry] == assigned[dropEntry]) {
+                    honoredDelta--;
+                }
+                if (slotSizes[dropDay * shifts + assigned[dropEntry]] <= minEmployeesPerShift) {
+                    coverDay = dropDay;
+                    coverShift = assigned[dropEntry];
+                }
+            }
+            if (coverDay >= 0) {
+                cover = findCover(coverDay, employee);
+                if (cover < 0) {
+                    gapDelta++;
+                } else if (preferences[cover * days + coverDay] == coverShift) {
+                    honoredDelta++;
+                }
+            }
+
+            int target = day * shifts + preferred;
+            if (slotSizes[target] >= maxEmployeesPerShift) {
+                evicted = slotMembers[target][random.nextInt(slotSizes[target])];
+                if (preferences[evicted * days + day] == preferred) {
+                    honoredDelta--;
+                }
+            } else if (slotSizes[target] < minEmployeesPerShift) {
+                gapDelta--;
+            }
+
+            long delta = honoredDelta - COVERAGE_WEIGHT * gapDelta;
+            if (delta < 0 && (temperature <= 0 || random.nextDouble() >= Math.exp(delta / temperature))) {
+                return;
+            }
+
+            if (current != NO_SHIFT) {
+                remove(employee, day);
+            }
+            if (dropDay >= 0) {
+                remove(employee, dropDay);
+            }
+            if (evicted >= 0) {
+                remove(evicted, day);
+            }
+            add(employee, day, preferred);
+            if (cover >= 0) {
+                add(cover, coverDay, coverShift);
+            }
+        }
+
+        // Someone other than `excluded` who is free on the day and under the weekly limit, or -1
+        private int findCover(int day, int excluded) {
+            int start = random.nextInt(employeeCount);
+            for (int i = 0; i < Math.min(employeeCount, COVER_SAMPLE); i++) {
+                int employee = (start + i) % employeeCount;
+                int mask = weekMasks[employee];
+                if (employee != excluded && ((mask | blockedDays[employee]) & (1 << day)) == 0
+                        && Integer.bitCount(mask) < maxDaysPerEmployee) {
+                    return employee;
+                }
+            }
+            return -1;
+        }
+
+        // Put anyone with spare capacity into a random understaffed slot
+        private void coverGap() {
+            int slot = random.nextInt(days * shifts);
+            if (slotSizes[slot] >= minEmployeesPerShift) {
+                return;
+            }
+            int employee = findCover(slot / shifts, -1);
+            if (employee >= 0) {
+                add(employee, slot / shifts, (byte) (slot % shifts));
+            }
+        }
+
+        private int randomWorkedDay(int mask) {
+            int skip = random.nextInt(Integer.bitCount(mask));
+            for (int i = 0; i < skip; i++) {
+                mask &= mask - 1; // clear lowest set bit
+            }
+            return Integer.numberOfTrailingZeros(mask);
+        }
+
+        private void add(int employee, int day, byte shift) {
+            int slot = day * shifts + shift;
+            int size = slotSizes[slot];
+            if (size == slotMembers[slot].length) {
+                slotMembers[slot] = Arrays.copyOf(slotMembers[slot], size * 2);
+            }
+            if (size < minEmployeesPerShift) {
+                gaps--;
+            }
+            slotMembers[slot][size] = employee;
+            slotSizes[slot] = size + 1;
+            assigned[employee * days + day] = shift;
+            weekMasks[employee] |= 1 << day;
+            if (preferences[employee * days + day] == shift) {
+                honored++;
+            }
+        }
+
+        private void remove(int employee, int day) {
+            int entry = employee * days + day;
+            byte shift = assigned[entry];
+            int slot = day * shifts + shift;
+            int[] members = slotMembers[slot];
+            int last = slotSizes[slot] - 1;
+            for (int i = 0; i <= last; i++) {
+                if (members[i] == employee) {
+                    members[i] = members[last];
+                    break;
+                }
+            }
+            slotSizes[slot] = last;
+            if (last < minEmployeesPerShift) {
+                gaps++;
+            }
+            assigned[entry] = NO_SHIFT;
+            weekMasks[employee] &= ~(1 << day);
+            if (preferences[entry] == shift) {
+                honored--;
+            }
+        }
+
+        private long score() {
+            return honored - COVERAGE_WEIGHT * gaps;
+        }
+    }
+}
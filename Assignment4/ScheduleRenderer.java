@@ -0,0 +1,42 @@
+import java.io.*;
+
+// Text rendering helpers shared by the engines. printSchedule goes through one
+// reusable 64 KB buffered writer over System.out, and padding is written
+// directly, without printf or String.format.
+final class ScheduleRenderer {
+    static final String NEWLINE = System.lineSeparator();
+
+    private static PrintStream target;
+    private static Writer console;
+
+    private ScheduleRenderer() {
+    }
+
+    // Rebuilt only when System.out has been replaced (the benchmarks redirect it)
+    static synchronized Writer console() {
+        if (target != System.out) {
+            target = System.out;
+            console = new BufferedWriter(new OutputStreamWriter(target), 1 << 16);
+        }
+        return console;
+    }
+
+    static void padRight(Writer out, String text, int width) throws IOException {
+        out.write(text);
+        repeat(out, ' ', width - text.length());
+    }
+
+    static void repeat(Writer out, char c, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.write(c);
+        }
+    }
+
+    static void writeInt(Writer out, int value) throws IOException {
+        if (value >= 0 && value < 10) {
+            out.write('0' + value);
+        } else {
+            out.write(Integer.toString(value));
+        }
+    }
+}
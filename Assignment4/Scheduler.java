@@ -0,0 +1,39 @@
+import java.io.IOException;
+import java.io.Writer;
+
+// Common public API shared by the schedule engines, so callers (and the
+// benchmarks) can swap the map-based EmployeeScheduleManager for the dense one.
+public interface Scheduler {
+    // The standard week and staffing limits. Both engines, the batch reader and
+    // the benchmarks use these; treat the arrays as read-only.
+    String[] DEFAULT_DAYS = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+    String[] DEFAULT_SHIFTS = {"Morning", "Afternoon", "Evening"};
+    int DEFAULT_MAX_DAYS_PER_EMPLOYEE = 5;
+    int DEFAULT_MIN_EMPLOYEES_PER_SHIFT = 2;
+
+    void addEmployee(String name);
+
+    void setEmployeePreference(String name, String day, String shift);
+
+    void generateSchedule();
+
+    void printSchedule();
+
+    // Assignment events for logging or tracing; null (the default) turns them off
+    void setListener(ScheduleListener listener);
+
+    // Same text as printSchedule, into any writer
+    void writeSchedule(Writer out) throws IOException;
+
+    // Walks the schedule slot by slot, days then shifts, for exporters
+    void forEachSlot(SlotVisitor visitor);
+
+    interface SlotVisitor {
+        void slot(String day, String shift, int size);
+
+        void employee(String name);
+    }
+
+    // Shift the employee works on that day, or null (read-only view for benchmarks and exports)
+    String getAssignedShift(String name, String day);
+}
@@ -3,6 +3,7 @@ import java.util.*;
 public class test_java {
     public static void main(String[] args) {
         EmployeeScheduleManager manager = new EmployeeScheduleManager();
+        manager.setListener(ScheduleListener.CONSOLE);
         
         // Add employees
         manager.addEmployee("Alice");
@@ -29,6 +30,151 @@ public class test_java {
         // Generate and print schedule
         manager.generateSchedule();
         manager.printSchedule();
+
+        testAddEmployeeToSchedule();
+        testRepairs();
     }
-}
 
+    // A new hire on a fully covered live schedule must land on their preferred shifts
+    static void testAddEmployeeToSchedule() {
+        String[] names = {"Alice", "Bob", "Charlie", "David", "Eve", "Frank", "Grace", "Henry", "Ivy"};
+        DenseScheduleManager dense = new DenseScheduleManager(names.length + 1);
+        for (String name : names) {
+            dense.addEmployee(name);
+        }
+        dense.generateSchedule();
+
+        Map<String, String> preferences = new LinkedHashMap<>();
+        preferences.put("Thursday", "Morning");
+        preferences.put("Saturday", "Evening");
+        List<DenseScheduleManager.ScheduleChange> changes = dense.addEmployeeToSchedule("Jack", preferences);
+        System.out.println("\naddEmployeeToSchedule(Jack): " + changes);
+        for (Map.Entry<String, String> preference : preferences.entrySet()) {
+            String assigned = dense.getAssignedShift("Jack", preference.getKey());
+            if (!preference.getValue().equals(assigned)) {
+                throw new IllegalStateException("Jack should work " + preference.getValue() + " on " +
+                                                preference.getKey() + ", got " + assigned);
+            }
+        }
+        if (dense.coverageGaps() != 0) {
+            throw new IllegalStateException("Adding Jack opened " + dense.coverageGaps() + " coverage gaps");
+        }
+        System.out.println("New hire placed on preferred shifts: OK");
+    }
+
+    // Call-outs and preference changes on a live schedule: every diff must turn the
+    // previous schedule into the new one, and no repair may break a constraint
+    static void testRepairs() {
+        String[] days = Scheduler.DEFAULT_DAYS;
+        String[] shifts = Scheduler.DEFAULT_SHIFTS;
+        int employees = 12;
+        DenseScheduleManager dense = new DenseScheduleManager(employees);
+        for (int i = 0; i < employees; i++) {
+            dense.addEmployee("Worker" + i);
+        }
+        dense.generateSchedule();
+
+        Random random = new Random(7);
+        Set<String> blocked = new HashSet<>();
+        int callOuts = 0;
+        int moves = 0;
+        int drops = 0;
+        int bumps = 0;
+        int takeovers = 0;
+        for (int step = 0; step < 2000; step++) {
+            Map<String, String> before = snapshot(dense, employees);
+            String name = "Worker" + random.nextInt(employees);
+            String day = days[random.nextInt(days.length)];
+            String shift = shifts[random.nextInt(shifts.length)];
+
+            List<DenseScheduleManager.ScheduleChange> changes;
+            String slotLeft = before.get(name + "|" + day);
+            if (step % 200 == 0 && slotLeft != null) {
+                changes = dense.markUnavailable(name, day);
+                blocked.add(name + "|" + day);
+                callOuts++;
+                check(countIn(dense, employees, day, slotLeft) >= 2,
+                      "call-out of " + name + " left " + day + " " + slotLeft + " below the minimum");
+            } else {
+                changes = dense.updatePreference(name, day, shift);
+                if (!changes.isEmpty()) {
+                    moves++;
+                    check(shift.equals(dense.getAssignedShift(name, day)),
+                          name + " moved but is not on " + day + " " + shift + ": " + changes);
+                }
+                for (DenseScheduleManager.ScheduleChange change : changes) {
+                    if (change.isAdded()) {
+                        takeovers += change.getEmployee().equals(name) ? 0 : 1;
+                    } else if (change.getEmployee().equals(name) && !change.getDay().equals(day)) {
+                        drops++;
+                    } else if (!change.getEmployee().equals(name)) {
+                        bumps++;
+                    }
+                }
+            }
+
+            // The returned diff applied to the old schedule must give the new one
+            Map<String, String> expected = new HashMap<>(before);
+            for (DenseScheduleManager.ScheduleChange change : changes) {
+                String key = change.getEmployee() + "|" + change.getDay();
+                if (change.isAdded()) {
+                    check(expected.put(key, change.getShift()) == null, "diff adds an occupied day: " + change);
+                } else {
+                    check(change.getShift().equals(expected.remove(key)), "diff removes a shift that wasn't held: " + change);
+                }
+            }
+            Map<String, String> after = snapshot(dense, employees);
+            check(expected.equals(after), "diff " + changes + " does not match the new schedule");
+
+            for (String key : blocked) {
+                check(!after.containsKey(key), "blocked day reassigned: " + key);
+            }
+            for (int i = 0; i < employees; i++) {
+                int worked = 0;
+                for (String d : days) {
+                    worked += after.containsKey("Worker" + i + "|" + d) ? 1 : 0;
+                }
+                check(worked <= 5, "Worker" + i + " works " + worked + " days");
+            }
+            for (String d : days) {
+                for (String sh : shifts) {
+                    int size = countIn(dense, employees, d, sh);
+                    check(size >= 2 && size <= 3, d + " " + sh + " has " + size + " employees");
+                }
+            }
+        }
+        check(drops > 0 && bumps > 0 && takeovers > 0,
+              "repair paths not exercised: " + drops + " drops, " + bumps + " bumps, " + takeovers + " takeovers");
+        System.out.println("Repairs: " + callOuts + " call-outs, " + moves + " preference moves (" + drops + " drops, " +
+                           bumps + " bumps, " + takeovers + " takeovers): OK");
+    }
+
+    static Map<String, String> snapshot(DenseScheduleManager dense, int employees) {
+        Map<String, String> schedule = new HashMap<>();
+        for (int i = 0; i < employees; i++) {
+            for (String day : Scheduler.DEFAULT_DAYS) {
+                String shift = dense.getAssignedShift("Worker" + i, day);
+                if (shift != null) {
+                    schedule.put("Worker" + i + "|" + day, shift);
+                }
+            }
+        }
+        return schedule;
+    }
+
+    static int countIn(DenseScheduleManager dense, int employees, String day, String shift) {
+        int count = 0;
+        for (int i = 0; i < employees; i++) {
+            if (shift.equals(dense.getAssignedShift("Worker" + i, day))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+}